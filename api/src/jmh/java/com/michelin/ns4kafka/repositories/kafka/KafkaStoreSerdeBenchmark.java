@@ -0,0 +1,73 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import org.apache.kafka.common.serialization.Serde;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding time of a full topics store replay, JSON against binary records
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KafkaStoreSerdeBenchmark {
+    private static final int RECORDS = 100_000;
+
+    @Param({"JSON", "BINARY"})
+    KafkaStoreSerde.Format format;
+
+    Serde<Topic> serde;
+    byte[][] records;
+    long totalBytes;
+
+    /**
+     * Size of the records decoded, reported along with the decoding time
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RecordSize {
+        public long bytesPerRecord;
+    }
+
+    @Setup
+    public void setUp() {
+        serde = new KafkaStoreSerdeRegistry(format, new ObjectMapper()).getSerde(Topic.class);
+        records = new byte[RECORDS][];
+        totalBytes = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            Topic topic = Topic.builder()
+                    .metadata(ObjectMeta.builder()
+                            .name("namespace" + (i % 500) + "-topic" + i)
+                            .namespace("namespace" + (i % 500))
+                            .cluster("cluster" + (i % 3))
+                            .creationTimestamp(new Date())
+                            .build())
+                    .spec(Topic.TopicSpec.builder()
+                            .replicationFactor(3)
+                            .partitions(6)
+                            .configs(Map.of("cleanup.policy", "delete",
+                                    "min.insync.replicas", "2",
+                                    "retention.ms", String.valueOf(60000L * (i % 100 + 1))))
+                            .build())
+                    .status(Topic.TopicStatus.ofSuccess("Topic created"))
+                    .build();
+            records[i] = serde.serializer().serialize("ns4kafka.topics", topic);
+            totalBytes += records[i].length;
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole, RecordSize recordSize) {
+        recordSize.bytesPerRecord = totalBytes / RECORDS;
+        for (byte[] record : records) {
+            blackhole.consume(serde.deserializer().deserialize("ns4kafka.topics", record));
+        }
+    }
+}
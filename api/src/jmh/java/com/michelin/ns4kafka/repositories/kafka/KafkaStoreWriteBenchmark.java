@@ -0,0 +1,83 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import io.micronaut.context.ApplicationContext;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write throughput of the store with a reader polling every 5ms, one writer against eight.
+ * A lone writer pays one reader cycle per write, concurrent writers share them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class KafkaStoreWriteBenchmark {
+    private static final int READER_POLL_MS = 5;
+
+    MockProducer<String, String> producer;
+    KafkaStore<String> store;
+    ScheduledExecutorService reader;
+    AtomicLong keys = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        store = new KafkaStore<>("benchmark.store", producer) {
+            @Override
+            String getMessageKey(String message) {
+                return message;
+            }
+        };
+        store.initTimeout = 10000;
+        // no listeners for the store events
+        store.applicationContext = (ApplicationContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ApplicationContext.class}, (proxy, method, args) -> null);
+
+        // replays the records sent since the last poll, the offsets of the mock producer keep counting after clear
+        reader = Executors.newSingleThreadScheduledExecutor();
+        long[] readOffset = {0};
+        reader.scheduleWithFixedDelay(() -> {
+            List<ProducerRecord<String, String>> history;
+            synchronized (producer) {
+                history = producer.history();
+                producer.clear();
+            }
+            for (ProducerRecord<String, String> record : history) {
+                store.receive(new ConsumerRecord<>(record.topic(), 0, readOffset[0]++, record.key(), record.value()));
+            }
+        }, READER_POLL_MS, READER_POLL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        reader.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String singleWriter() {
+        return write();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String concurrentWriters() {
+        return write();
+    }
+
+    private String write() {
+        // a bounded key set keeps the local store size steady
+        String key = "key" + (keys.incrementAndGet() % 10_000);
+        return store.produce(key, key);
+    }
+}
@@ -0,0 +1,86 @@
+package com.michelin.ns4kafka.services.executors;
+
+import org.apache.kafka.common.acl.AccessControlEntry;
+import org.apache.kafka.common.acl.AclBinding;
+import org.apache.kafka.common.acl.AclOperation;
+import org.apache.kafka.common.acl.AclPermissionType;
+import org.apache.kafka.common.resource.PatternType;
+import org.apache.kafka.common.resource.ResourcePattern;
+import org.apache.kafka.common.resource.ResourceType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * ACL cycle without the AdminClient calls: scope the broker bindings to the managed principals, then diff them
+ * with the ns4kafka bindings. Lists with contains against hashed sets.
+ * The list variant is quadratic, at 100k bindings a single operation takes minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AccessControlEntryDiffBenchmark {
+    private static final int PRINCIPALS = 500;
+
+    @Param({"10000", "50000", "100000"})
+    int bindings;
+
+    List<AclBinding> brokerBindings;
+    List<AclBinding> ns4kafkaBindings;
+    List<String> managedPrincipalList;
+    Set<String> managedPrincipals;
+
+    @Setup
+    public void setUp() {
+        // 80% of the principals are managed by ns4kafka, 1% of their bindings to create and 1% to delete
+        managedPrincipalList = new ArrayList<>();
+        for (int i = 0; i < PRINCIPALS * 8 / 10; i++) {
+            managedPrincipalList.add("User:user" + i);
+        }
+        managedPrincipals = new HashSet<>(managedPrincipalList);
+
+        brokerBindings = new ArrayList<>(bindings);
+        ns4kafkaBindings = new ArrayList<>(bindings);
+        for (int i = 0; i < bindings; i++) {
+            AclBinding binding = buildBinding(i);
+            if (i % 100 != 0) {
+                brokerBindings.add(binding);
+            }
+            if (i % 100 != 1 && managedPrincipals.contains(binding.entry().principal())) {
+                ns4kafkaBindings.add(binding);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object lists() {
+        List<AclBinding> managedBindings = AccessControlEntryAsyncExecutor.filterManagedResourceTypes(brokerBindings)
+                .stream()
+                .filter(aclBinding -> managedPrincipalList.contains(aclBinding.entry().principal()))
+                .collect(Collectors.toList());
+        List<AclBinding> toCreate = ns4kafkaBindings.stream()
+                .filter(aclBinding -> !managedBindings.contains(aclBinding))
+                .collect(Collectors.toList());
+        List<AclBinding> toDelete = managedBindings.stream()
+                .filter(aclBinding -> !ns4kafkaBindings.contains(aclBinding))
+                .collect(Collectors.toList());
+        return List.of(toCreate, toDelete);
+    }
+
+    @Benchmark
+    public Object sets() {
+        List<AclBinding> managedBindings = AccessControlEntryAsyncExecutor.filterManagedPrincipals(
+                AccessControlEntryAsyncExecutor.filterManagedResourceTypes(brokerBindings), managedPrincipals);
+        return AccessControlEntryAsyncExecutor.ACL_RECONCILER.diff(ns4kafkaBindings, managedBindings);
+    }
+
+    private AclBinding buildBinding(int i) {
+        ResourceType resourceType = i % 3 == 0 ? ResourceType.GROUP : ResourceType.TOPIC;
+        AclOperation operation = resourceType == ResourceType.GROUP ? AclOperation.READ : List.of(AclOperation.READ, AclOperation.WRITE).get(i % 2);
+        return new AclBinding(
+                new ResourcePattern(resourceType, "prefix" + (i / 2) + ".", PatternType.PREFIXED),
+                new AccessControlEntry("User:user" + (i % PRINCIPALS), "*", operation, AclPermissionType.ALLOW));
+    }
+}
@@ -0,0 +1,77 @@
+package com.michelin.ns4kafka.services.executors;
+
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Diff of the topics of a cluster, nested scans against the name-keyed Reconciler
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReconcilerBenchmark {
+    @Param({"50000"})
+    int resources;
+
+    List<Topic> desired;
+    List<Topic> actual;
+    Reconciler<String, Topic, Topic> reconciler;
+
+    @Setup
+    public void setUp() {
+        // 1% of the topics to create, 1% to update and 1% not declared in ns4kafka
+        desired = new ArrayList<>(resources);
+        actual = new ArrayList<>(resources);
+        for (int i = 0; i < resources; i++) {
+            if (i % 100 != 0) {
+                desired.add(buildTopic("topic" + i, "604800000"));
+            }
+            if (i % 100 != 1) {
+                actual.add(buildTopic("topic" + i, i % 100 == 2 ? "86400000" : "604800000"));
+            }
+        }
+        reconciler = new Reconciler<>(
+                topic -> topic.getMetadata().getName(),
+                topic -> topic.getMetadata().getName(),
+                (expected, current) -> expected.getSpec().getConfigs().equals(current.getSpec().getConfigs()));
+    }
+
+    @Benchmark
+    public Object nestedScans() {
+        List<Topic> toCreate = desired.stream()
+                .filter(topic -> actual.stream().noneMatch(topic1 -> topic1.getMetadata().getName().equals(topic.getMetadata().getName())))
+                .collect(Collectors.toList());
+        List<Topic> toUpdate = desired.stream()
+                .filter(topic -> actual.stream()
+                        .anyMatch(topic1 -> topic1.getMetadata().getName().equals(topic.getMetadata().getName())
+                                && !topic1.getSpec().getConfigs().equals(topic.getSpec().getConfigs())))
+                .collect(Collectors.toList());
+        List<Topic> toDelete = actual.stream()
+                .filter(topic -> desired.stream().noneMatch(topic1 -> topic1.getMetadata().getName().equals(topic.getMetadata().getName())))
+                .collect(Collectors.toList());
+        return List.of(toCreate, toUpdate, toDelete);
+    }
+
+    @Benchmark
+    public Object reconciler() {
+        return reconciler.diff(desired, actual);
+    }
+
+    private Topic buildTopic(String name, String retention) {
+        return Topic.builder()
+                .metadata(ObjectMeta.builder().name(name).cluster("local").build())
+                .spec(Topic.TopicSpec.builder()
+                        .replicationFactor(3)
+                        .partitions(6)
+                        .configs(Map.of("cleanup.policy", "delete", "retention.ms", retention))
+                        .build())
+                .build();
+    }
+}
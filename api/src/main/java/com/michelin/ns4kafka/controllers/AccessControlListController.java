@@ -5,6 +5,7 @@ import com.michelin.ns4kafka.models.Namespace;
 import com.michelin.ns4kafka.security.ResourceBasedSecurityRule;
 import com.michelin.ns4kafka.services.AccessControlEntryService;
 import com.michelin.ns4kafka.services.NamespaceService;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.*;
@@ -30,8 +31,35 @@ public class AccessControlListController extends NamespacedResourceController {
     @Inject
     AccessControlEntryService accessControlEntryService;
 
-    @Operation(summary = "Returns the Access Control Entry List")
-    @Get("{?limit}")
+    @Operation(summary = "Returns the Access Control Entry List, or streams its changes")
+    @Get("{?limit,watch,resourceVersion}")
+    public HttpResponse<?> list(String namespace, Optional<AclLimit> limit,
+                                @QueryValue(defaultValue = "false") boolean watch, Optional<Long> resourceVersion,
+                                @Header(HttpHeaders.IF_NONE_MATCH) Optional<String> ifNoneMatch) {
+        AclLimit aclLimit = limit.orElse(AclLimit.ALL);
+        if (watch) {
+            Namespace ns = getNamespace(namespace);
+            return watch(AccessControlEntry.class, resourceVersion, () -> list(namespace, Optional.of(aclLimit)),
+                    accessControlEntry -> accessControlEntry.getMetadata().getCluster().equals(ns.getMetadata().getCluster())
+                            && isListed(accessControlEntry, namespace, aclLimit));
+        }
+        return conditionalList(list(namespace, Optional.of(aclLimit)), AccessControlEntry::getMetadata, ifNoneMatch);
+    }
+
+    private boolean isListed(AccessControlEntry accessControlEntry, String namespace, AclLimit limit) {
+        boolean grantedToMe = accessControlEntry.getSpec().getGrantedTo().equals(namespace);
+        boolean grantedByMe = accessControlEntry.getMetadata().getNamespace().equals(namespace);
+        switch (limit) {
+            case GRANTEE:
+                return grantedToMe;
+            case GRANTOR:
+                return grantedByMe && !grantedToMe;
+            case ALL:
+            default:
+                return grantedToMe || grantedByMe;
+        }
+    }
+
     public List<AccessControlEntry> list(String namespace, Optional<AclLimit> limit) {
         if (limit.isEmpty())
             limit = Optional.of(AclLimit.ALL);
@@ -0,0 +1,12 @@
+package com.michelin.ns4kafka.controllers;
+
+/**
+ * Thrown when the topics of a cluster are still not loaded after the load timeout, the client retries shortly
+ */
+public class BrokerTopicsNotLoadedException extends RuntimeException {
+    private static final long serialVersionUID = 3378641525694712640L;
+
+    public BrokerTopicsNotLoadedException(String cluster) {
+        super("The topics of cluster " + cluster + " are being loaded, retry in a few seconds");
+    }
+}
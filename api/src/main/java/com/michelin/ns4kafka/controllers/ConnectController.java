@@ -3,12 +3,18 @@ package com.michelin.ns4kafka.controllers;
 import com.michelin.ns4kafka.models.ChangeConnectorState;
 import com.michelin.ns4kafka.models.Connector;
 import com.michelin.ns4kafka.models.Namespace;
+import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.services.KafkaConnectService;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.*;
 import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import javax.inject.Inject;
@@ -16,7 +22,10 @@ import javax.validation.Valid;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Tag(name = "Connects")
@@ -26,14 +35,41 @@ public class ConnectController extends NamespacedResourceController {
     @Inject
     KafkaConnectService kafkaConnectService;
 
-    @Get
+    /**
+     * Connectors changed at the same time by the bulk change-state endpoint
+     */
+    @Value("${ns4kafka.connect.change-state-parallelism:4}")
+    int changeStateParallelism = 4;
+
+    @Get("{?watch,resourceVersion}")
+    public HttpResponse<?> list(String namespace, @QueryValue(defaultValue = "false") boolean watch, Optional<Long> resourceVersion,
+                                @Header(HttpHeaders.IF_NONE_MATCH) Optional<String> ifNoneMatch) {
+        Namespace ns = getNamespace(namespace);
+        if (watch) {
+            return watch(Connector.class, resourceVersion, () -> kafkaConnectService.findAllForNamespace(ns),
+                    connector -> connector.getMetadata().getCluster().equals(ns.getMetadata().getCluster())
+                            && kafkaConnectService.isNamespaceOwnerOfConnect(ns, connector.getMetadata().getName()));
+        }
+        // the status doesn't change the resource version, it is part of the tag
+        return conditionalList(list(ns), Connector::getMetadata, connector -> Objects.hashCode(connector.getStatus()), ifNoneMatch);
+    }
+
     public List<Connector> list(String namespace) {
-        return kafkaConnectService.findAllForNamespace(getNamespace(namespace));
+        return list(getNamespace(namespace));
+    }
+
+    private List<Connector> list(Namespace ns) {
+        return kafkaConnectService.findAllForNamespace(ns)
+                .stream()
+                .map(connector -> kafkaConnectService.withStatus(ns, connector))
+                .collect(Collectors.toList());
     }
 
     @Get("/{connector}")
     public Optional<Connector> getConnector(String namespace, String connector) {
-        return kafkaConnectService.findByName(getNamespace(namespace), connector);
+        Namespace ns = getNamespace(namespace);
+        return kafkaConnectService.findByName(ns, connector)
+                .map(found -> kafkaConnectService.withStatus(ns, found));
     }
 
     @Status(HttpStatus.NO_CONTENT)
@@ -144,37 +180,107 @@ public class ConnectController extends NamespacedResourceController {
         if (optionalConnector.isEmpty())
             return HttpResponse.notFound();
 
+        changeConnectorState.setStatus(changeState(ns, optionalConnector.get(), changeConnectorState.getSpec().getAction()));
+
+        // override metadata
+        changeConnectorState.setMetadata(optionalConnector.get().getMetadata());
+        changeConnectorState.getMetadata().setCreationTimestamp(Date.from(Instant.now()));
+        return HttpResponse.ok(changeConnectorState);
+    }
+
+    /**
+     * Pause, resume or restart several connectors at once, picked by name or by labels
+     * @param namespace The namespace
+     * @param changeConnectorState The action, and the connector names or the label selector, the metadata is not needed
+     * @return The result of the action on each connector
+     */
+    @Post("/_/change-state")
+    public List<ChangeConnectorState> changeStates(String namespace, @Body @Valid ChangeConnectorState changeConnectorState) {
+        Namespace ns = getNamespace(namespace);
+        ChangeConnectorState.ChangeConnectorStateSpec spec = changeConnectorState.getSpec();
+
+        List<String> connectorNames;
+        Map<String, Connector> connectors;
+        if (spec.getConnectors() != null && !spec.getConnectors().isEmpty()) {
+            List<String> validationErrors = spec.getConnectors()
+                    .stream()
+                    .filter(connector -> !kafkaConnectService.isNamespaceOwnerOfConnect(ns, connector))
+                    .map(connector -> "Invalid value " + connector + " for spec.connectors: Namespace not OWNER of this connector")
+                    .collect(Collectors.toList());
+            if (!validationErrors.isEmpty()) {
+                throw new ResourceValidationException(validationErrors, changeConnectorState.getKind(), "_");
+            }
+            connectorNames = spec.getConnectors().stream().distinct().collect(Collectors.toList());
+            connectors = kafkaConnectService.findAllForNamespace(ns)
+                    .stream()
+                    .filter(connector -> connectorNames.contains(connector.getMetadata().getName()))
+                    .collect(Collectors.toMap(connector -> connector.getMetadata().getName(), Function.identity()));
+        } else if (spec.getLabelSelector() != null && !spec.getLabelSelector().isEmpty()) {
+            connectors = kafkaConnectService.findAllForNamespace(ns)
+                    .stream()
+                    .filter(connector -> connector.getMetadata().getLabels() != null
+                            && connector.getMetadata().getLabels().entrySet().containsAll(spec.getLabelSelector().entrySet()))
+                    .collect(Collectors.toMap(connector -> connector.getMetadata().getName(), Function.identity()));
+            connectorNames = connectors.keySet().stream().sorted().collect(Collectors.toList());
+        } else {
+            throw new ResourceValidationException(List.of("Invalid empty value for spec.connectors and spec.labelSelector: " +
+                    "Value must be non-empty for one of them"), changeConnectorState.getKind(), "_");
+        }
+
+        // results in the order of the names, the connectors are changed a few at a time
+        return Flowable.fromIterable(connectorNames)
+                .concatMapEager(connectorName -> Single.fromCallable(() -> ChangeConnectorState.builder()
+                                .metadata(ObjectMeta.builder()
+                                        .name(connectorName)
+                                        .namespace(ns.getMetadata().getName())
+                                        .cluster(ns.getMetadata().getCluster())
+                                        .creationTimestamp(Date.from(Instant.now()))
+                                        .build())
+                                .spec(ChangeConnectorState.ChangeConnectorStateSpec.builder()
+                                        .action(spec.getAction())
+                                        .build())
+                                .status(connectors.containsKey(connectorName)
+                                        ? changeState(ns, connectors.get(connectorName), spec.getAction())
+                                        : ChangeConnectorState.ChangeConnectorStateStatus.builder()
+                                                .success(false)
+                                                .code(HttpStatus.NOT_FOUND)
+                                                .errorMessage("Connector " + connectorName + " not found")
+                                                .build())
+                                .build())
+                        .subscribeOn(Schedulers.io())
+                        .toFlowable(), changeStateParallelism, 1)
+                .toList()
+                .blockingGet();
+    }
+
+    private ChangeConnectorState.ChangeConnectorStateStatus changeState(Namespace ns, Connector connector,
+                                                                        ChangeConnectorState.ConnectorAction action) {
         HttpResponse response;
         try {
-            switch (changeConnectorState.getSpec().getAction()) {
+            switch (action) {
                 case restart:
-                    response = kafkaConnectService.restart(ns, optionalConnector.get());
+                    response = kafkaConnectService.restart(ns, connector);
                     break;
                 case pause:
-                    response = kafkaConnectService.pause(ns, optionalConnector.get());
+                    response = kafkaConnectService.pause(ns, connector);
                     break;
                 case resume:
-                    response = kafkaConnectService.resume(ns, optionalConnector.get());
+                    response = kafkaConnectService.resume(ns, connector);
                     break;
                 default:
-                    throw new IllegalStateException("Unspecified Action "+changeConnectorState.getSpec().getAction());
+                    throw new IllegalStateException("Unspecified Action "+action);
             }
-            changeConnectorState.setStatus(ChangeConnectorState.ChangeConnectorStateStatus.builder()
+            return ChangeConnectorState.ChangeConnectorStateStatus.builder()
                     .success(true)
                     .code(response.status())
-                    .build());
+                    .build();
         } catch (Exception e) {
-            changeConnectorState.setStatus(ChangeConnectorState.ChangeConnectorStateStatus.builder()
+            return ChangeConnectorState.ChangeConnectorStateStatus.builder()
                     .success(false)
                     .code(HttpStatus.INTERNAL_SERVER_ERROR)
                     .errorMessage(e.getMessage())
-                    .build());
+                    .build();
         }
-
-        // override metadata
-        changeConnectorState.setMetadata(optionalConnector.get().getMetadata());
-        changeConnectorState.getMetadata().setCreationTimestamp(Date.from(Instant.now()));
-        return HttpResponse.ok(changeConnectorState);
     }
 
     @Post("/_/import{?dryrun}")
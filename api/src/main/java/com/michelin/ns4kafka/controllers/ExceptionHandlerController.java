@@ -75,6 +75,32 @@ public class ExceptionHandlerController {
         return message.toString();
     }
 
+    @Error(global = true)
+    public HttpResponse<Status> error(HttpRequest<?> request, ResourceVersionExpiredException exception) {
+        var status = Status.builder()
+                .status(StatusPhase.Failed)
+                .message(exception.getMessage())
+                .reason(StatusReason.Expired)
+                .code(HttpStatus.GONE.getCode())
+                .build();
+
+        return HttpResponse.status(HttpStatus.GONE)
+                .body(status);
+    }
+
+    @Error(global = true)
+    public HttpResponse<Status> error(HttpRequest<?> request, BrokerTopicsNotLoadedException exception) {
+        var status = Status.builder()
+                .status(StatusPhase.Failed)
+                .message(exception.getMessage())
+                .reason(StatusReason.ServiceUnavailable)
+                .code(HttpStatus.SERVICE_UNAVAILABLE.getCode())
+                .build();
+
+        return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(status);
+    }
+
     @Error(global = true, status = HttpStatus.NOT_FOUND)
     public HttpResponse<Status> error(HttpRequest<?> request) {
         var status = Status.builder()
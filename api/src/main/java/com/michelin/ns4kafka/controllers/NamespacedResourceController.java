@@ -1,9 +1,22 @@
 package com.michelin.ns4kafka.controllers;
 
 import com.michelin.ns4kafka.models.Namespace;
+import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.services.NamespaceService;
+import com.michelin.ns4kafka.services.WatchService;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.sse.Event;
 
 import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 /**
  * Base Controller for all Namespaced resources
@@ -11,6 +24,8 @@ import javax.inject.Inject;
 public abstract class NamespacedResourceController extends ResourceController {
     @Inject
     private NamespaceService namespaceService;
+    @Inject
+    private WatchService watchService;
 
     /**
      * Call this to get the Namespace associated with the current request.
@@ -21,4 +36,75 @@ public abstract class NamespacedResourceController extends ResourceController {
     public Namespace getNamespace(String namespace){
         return namespaceService.findByName(namespace).orElseThrow();
     }
+
+    /**
+     * Answer a list request, tagged with the resource versions of the listed resources.
+     * The list is not sent again to a client whose If-None-Match header holds the same tag.
+     * @param resources The listed resources
+     * @param metadata The metadata of a resource
+     * @param ifNoneMatch The If-None-Match request header
+     * @return The resources, or 304 if they are unchanged
+     */
+    public <T> HttpResponse<List<T>> conditionalList(List<T> resources, Function<T, ObjectMeta> metadata, Optional<String> ifNoneMatch) {
+        return conditionalList(resources, metadata, resource -> 0, ifNoneMatch);
+    }
+
+    /**
+     * Answer a list request, tagged with the resource versions and the statuses of the listed resources
+     * @param resources The listed resources
+     * @param metadata The metadata of a resource
+     * @param status A hash of the part of a resource not versioned in its metadata, such as a status read from a cluster
+     * @param ifNoneMatch The If-None-Match request header
+     * @return The resources, or 304 if they are unchanged
+     */
+    public <T> HttpResponse<List<T>> conditionalList(List<T> resources, Function<T, ObjectMeta> metadata, ToIntFunction<T> status,
+                                                     Optional<String> ifNoneMatch) {
+        String eTag = eTag(resources, metadata, status);
+        boolean notModified = ifNoneMatch
+                .map(tags -> Arrays.stream(tags.split(","))
+                        .map(String::trim)
+                        .anyMatch(tag -> tag.equals(eTag) || tag.equals("*")))
+                .orElse(false);
+        if (notModified) {
+            return HttpResponse.<List<T>>notModified().header(HttpHeaders.ETAG, eTag);
+        }
+        return HttpResponse.ok(resources).header(HttpHeaders.ETAG, eTag);
+    }
+
+    /**
+     * Tag of a list of resources: the last resource version amongst them, plus a digest of all their versions,
+     * so that a resource leaving the list changes the tag too
+     */
+    static <T> String eTag(List<T> resources, Function<T, ObjectMeta> metadata) {
+        return eTag(resources, metadata, resource -> 0);
+    }
+
+    static <T> String eTag(List<T> resources, Function<T, ObjectMeta> metadata, ToIntFunction<T> status) {
+        long lastResourceVersion = -1;
+        long digest = 0;
+        for (T resource : resources) {
+            long resourceVersion = metadata.apply(resource).getResourceVersion();
+            lastResourceVersion = Math.max(lastResourceVersion, resourceVersion);
+            // order independent, each version is a distinct offset
+            digest += resourceVersion * 0x9E3779B97F4A7C15L + status.applyAsInt(resource) * 0xC2B2AE3D27D4EB4FL;
+        }
+        return "\"" + lastResourceVersion + "-" + Long.toHexString(digest) + "\"";
+    }
+
+    /**
+     * Stream the changes of the resources of a list endpoint as Server-Sent Events.
+     * Each event is named after its change type and identified by its resource version.
+     * @param type The resource type
+     * @param resourceVersion The resource version to resume watching from, the current resources are sent first without it
+     * @param list The resources listed by the endpoint
+     * @param filter Whether a resource belongs to the listed ones
+     * @return The stream of changes
+     */
+    public <T> HttpResponse<?> watch(Class<T> type, Optional<Long> resourceVersion, Supplier<List<T>> list, Predicate<T> filter) {
+        return HttpResponse.ok(watchService.watch(type, resourceVersion.orElse(null), list, filter)
+                        .map(event -> Event.of(event)
+                                .id(String.valueOf(event.getResourceVersion()))
+                                .name(event.getType().name())))
+                .contentType(MediaType.TEXT_EVENT_STREAM_TYPE);
+    }
 }
@@ -0,0 +1,18 @@
+package com.michelin.ns4kafka.controllers;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a watch is resumed from a resource version older than the retained change history
+ */
+public class ResourceVersionExpiredException extends RuntimeException {
+    private static final long serialVersionUID = -6042938245316729046L;
+
+    @Getter
+    private final long resourceVersion;
+
+    public ResourceVersionExpiredException(long resourceVersion) {
+        super("Resource version " + resourceVersion + " is too old, list the resources again");
+        this.resourceVersion = resourceVersion;
+    }
+}
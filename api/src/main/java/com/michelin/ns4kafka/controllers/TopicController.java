@@ -5,6 +5,7 @@ import com.michelin.ns4kafka.models.Namespace;
 import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.models.Topic;
 import com.michelin.ns4kafka.services.TopicService;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.annotation.*;
@@ -28,11 +29,29 @@ public class TopicController extends NamespacedResourceController {
     @Inject
     TopicService topicService;
 
+    /**
+     * @param namespace The namespace to query
+     * @param watch true to stream the changes of the Topics instead
+     * @param resourceVersion The resource version to resume watching from
+     * @param ifNoneMatch The ETag of the list last received
+     * @return The list of all Topics, or the stream of their changes
+     */
+    @Get("{?watch,resourceVersion}")
+    public HttpResponse<?> list(String namespace, @QueryValue(defaultValue = "false") boolean watch, Optional<Long> resourceVersion,
+                                @Header(HttpHeaders.IF_NONE_MATCH) Optional<String> ifNoneMatch) {
+        Namespace ns = getNamespace(namespace);
+        if (watch) {
+            return watch(Topic.class, resourceVersion, () -> topicService.findAllForNamespace(ns),
+                    topic -> topic.getMetadata().getCluster().equals(ns.getMetadata().getCluster())
+                            && topicService.isNamespaceOwnerOfTopic(namespace, topic.getMetadata().getName()));
+        }
+        return conditionalList(topicService.findAllForNamespace(ns), Topic::getMetadata, ifNoneMatch);
+    }
+
     /**
      * @param namespace The namespace to query
      * @return The list of all Topics names available for that namespace (owned and accessible)
      */
-    @Get
     public List<Topic> list(String namespace) {
         //TODO ?labelSelector=environment%3Dproduction,tier%3Dfrontend
 
@@ -178,13 +197,9 @@ public class TopicController extends NamespacedResourceController {
         if (dryrun) {
             return unsynchronizedTopics;
         }
-        List<Topic> synchronizedTopics = unsynchronizedTopics.stream()
-                .map(topic -> {
-                    sendEventLog("Topic", topic.getMetadata(), ApplyStatus.created, null, topic.getSpec());
-                    return topicService.create(topic);
-                })
-                .collect(Collectors.toList());
-        return synchronizedTopics;
+        unsynchronizedTopics.forEach(topic ->
+                sendEventLog("Topic", topic.getMetadata(), ApplyStatus.created, null, topic.getSpec()));
+        return topicService.createAll(unsynchronizedTopics);
     }
 
     @Post("{topic}/delete-records{?dryrun}")
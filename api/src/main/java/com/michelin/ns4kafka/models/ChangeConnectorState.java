@@ -9,6 +9,8 @@ import lombok.NoArgsConstructor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Map;
 
 @Introspected
 @Builder
@@ -18,8 +20,10 @@ import javax.validation.constraints.NotNull;
 public class ChangeConnectorState {
     private final String apiVersion = "v1";
     private final String kind = "ChangeConnectorState";
+    /**
+     * Optional in the requests, the connectors are named by the path or by the spec, set in the responses
+     */
     @Valid
-    @NotNull
     private ObjectMeta metadata;
     @Valid
     @NotNull
@@ -34,9 +38,14 @@ public class ChangeConnectorState {
     public static class ChangeConnectorStateSpec {
         @NotNull
         private ConnectorAction action;
-        //TODO
-        // connectCluster
-        // taskId
+        /**
+         * The connectors changed by the bulk endpoint, by name
+         */
+        private List<String> connectors;
+        /**
+         * The connectors changed by the bulk endpoint, by labels, when no name is given
+         */
+        private Map<String, String> labelSelector;
     }
 
     @Introspected
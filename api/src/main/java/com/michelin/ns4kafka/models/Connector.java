@@ -49,11 +49,13 @@ public class Connector {
     @NoArgsConstructor
     @Getter
     @Setter
+    @EqualsAndHashCode
     public static class ConnectorStatus {
         private TaskState state;
         private String worker_id;
 
         private List<TaskStatus> tasks;
+        @EqualsAndHashCode.Exclude
         @JsonFormat(shape = JsonFormat.Shape.STRING)
         private Date lastUpdateTime;
 
@@ -64,6 +66,7 @@ public class Connector {
     @NoArgsConstructor
     @Getter
     @Setter
+    @EqualsAndHashCode
     public static class TaskStatus {
         String id;
         TaskState state;
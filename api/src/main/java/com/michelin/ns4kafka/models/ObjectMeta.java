@@ -26,5 +26,10 @@ public class ObjectMeta {
     @EqualsAndHashCode.Exclude
     @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Date creationTimestamp;
+    /**
+     * Offset of the store topic record this object was read from
+     */
+    @EqualsAndHashCode.Exclude
+    private long resourceVersion;
 
 }
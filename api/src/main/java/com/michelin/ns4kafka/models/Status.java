@@ -48,11 +48,13 @@ public class Status {
         NotFound,
         AlreadyExists,
         Conflict,
+        Expired,
         Invalid,
         Timeout,
         ServerTimeout,
         MethodNotAllowed,
-        InternalError
+        InternalError,
+        ServiceUnavailable
     }
 
 }
@@ -0,0 +1,31 @@
+package com.michelin.ns4kafka.models;
+
+import io.micronaut.core.annotation.Introspected;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A change of a watched resource, streamed to the clients of the watch endpoints
+ * @param <T> The resource type
+ */
+@Introspected
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class WatchEvent<T> {
+    private WatchEventType type;
+    /**
+     * Offset of the change in the store topic, to resume the watch from
+     */
+    private long resourceVersion;
+    private T object;
+
+    public enum WatchEventType {
+        ADDED,
+        MODIFIED,
+        DELETED
+    }
+}
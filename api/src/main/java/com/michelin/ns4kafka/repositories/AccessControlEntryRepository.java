@@ -3,10 +3,14 @@ package com.michelin.ns4kafka.repositories;
 import com.michelin.ns4kafka.models.AccessControlEntry;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AccessControlEntryRepository {
     Collection<AccessControlEntry> findAll();
+    List<AccessControlEntry> findAllGrantedTo(String namespace);
+    List<AccessControlEntry> findAllForNamespace(String namespace);
+    List<AccessControlEntry> findAllForCluster(String cluster);
     Optional<AccessControlEntry> findByName(String namespace, String name);
     AccessControlEntry create(AccessControlEntry accessControlEntry);
     void delete(AccessControlEntry accessControlEntry);
@@ -3,6 +3,7 @@ package com.michelin.ns4kafka.repositories;
 import com.michelin.ns4kafka.models.Topic;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface TopicRepository {
     //List<Topic> findAllForNamespace(Namespace namespace);
@@ -16,8 +17,34 @@ public interface TopicRepository {
      */
     List<Topic> findAllForCluster(String cluster);
 
+    Optional<Topic> findByName(String cluster, String name);
+
+    /**
+     * Find the topics of a cluster whose names collide with a topic name in the metric names,
+     * including the topic itself if it exists
+     * @param cluster the cluster id
+     * @param name the topic name
+     * @return the colliding topics
+     */
+    List<Topic> findAllCollidingWith(String cluster, String name);
+
     Topic create(Topic topic);
 
+    /**
+     * Create a batch of topics, waiting once for the whole batch to be written
+     * @param topics the topics to create
+     * @return the created topics
+     */
+    List<Topic> createAll(List<Topic> topics);
+
+    /**
+     * Write back a batch of topics read from the repository with their new status,
+     * except the topics changed or deleted since they were read
+     * @param topics the topics read from the repository, with their new status
+     * @return the current topics
+     */
+    List<Topic> updateStatuses(List<Topic> topics);
+
     void delete(Topic topic);
 
 }
@@ -1,6 +1,7 @@
 package com.michelin.ns4kafka.repositories.kafka;
 
 import com.michelin.ns4kafka.models.AccessControlEntry;
+import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.repositories.AccessControlEntryRepository;
 import io.micronaut.configuration.kafka.annotation.*;
 import io.micronaut.context.annotation.Value;
@@ -9,6 +10,7 @@ import org.apache.kafka.clients.producer.Producer;
 
 import javax.inject.Singleton;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Singleton
@@ -18,9 +20,16 @@ import java.util.Optional;
         offsetStrategy = OffsetStrategy.DISABLED
 )
 public class KafkaAccessControlEntryRepository extends KafkaStore<AccessControlEntry> implements AccessControlEntryRepository {
+    private static final String GRANTED_TO_INDEX = "grantedTo";
+    private static final String NAMESPACE_INDEX = "namespace";
+    private static final String CLUSTER_INDEX = "cluster";
+
     public KafkaAccessControlEntryRepository(@Value("${ns4kafka.store.kafka.topics.prefix}.access-control-entries") String kafkaTopic,
                                     @KafkaClient("access-control-entries-producer") Producer<String, AccessControlEntry> kafkaProducer) {
         super(kafkaTopic, kafkaProducer);
+        addIndex(GRANTED_TO_INDEX, accessControlEntry -> accessControlEntry.getSpec().getGrantedTo());
+        addIndex(NAMESPACE_INDEX, accessControlEntry -> accessControlEntry.getMetadata().getNamespace());
+        addIndex(CLUSTER_INDEX, accessControlEntry -> accessControlEntry.getMetadata().getCluster());
     }
 
     @Override
@@ -28,6 +37,20 @@ public class KafkaAccessControlEntryRepository extends KafkaStore<AccessControlE
         return  accessControlEntry.getMetadata().getNamespace() + "/" + accessControlEntry.getMetadata().getName();
     }
 
+    @Override
+    AccessControlEntry deduplicate(AccessControlEntry accessControlEntry) {
+        KafkaStoreInterner.internMetadata(accessControlEntry.getMetadata());
+        if (accessControlEntry.getSpec() != null) {
+            accessControlEntry.getSpec().setGrantedTo(KafkaStoreInterner.intern(accessControlEntry.getSpec().getGrantedTo()));
+        }
+        return accessControlEntry;
+    }
+
+    @Override
+    ObjectMeta getMetadata(AccessControlEntry accessControlEntry) {
+        return accessControlEntry.getMetadata();
+    }
+
     @Override
     public AccessControlEntry create(AccessControlEntry accessControlEntry) {
         return this.produce(getMessageKey(accessControlEntry), accessControlEntry);
@@ -40,13 +63,27 @@ public class KafkaAccessControlEntryRepository extends KafkaStore<AccessControlE
 
     @Override
     public Optional<AccessControlEntry> findByName(String namespace, String name) {
-        return getKafkaStore().values()
+        return findAllByIndex(NAMESPACE_INDEX, namespace)
                 .stream()
-                .filter(ace -> ace.getMetadata().getNamespace().equals(namespace))
                 .filter(ace -> ace.getMetadata().getName().equals(name))
                 .findFirst();
     }
 
+    @Override
+    public List<AccessControlEntry> findAllGrantedTo(String namespace) {
+        return findAllByIndex(GRANTED_TO_INDEX, namespace);
+    }
+
+    @Override
+    public List<AccessControlEntry> findAllForNamespace(String namespace) {
+        return findAllByIndex(NAMESPACE_INDEX, namespace);
+    }
+
+    @Override
+    public List<AccessControlEntry> findAllForCluster(String cluster) {
+        return findAllByIndex(CLUSTER_INDEX, cluster);
+    }
+
     @Topic(value = "${ns4kafka.store.kafka.topics.prefix}.access-control-entries")
     void receive(ConsumerRecord<String, AccessControlEntry> record) {
         super.receive(record);
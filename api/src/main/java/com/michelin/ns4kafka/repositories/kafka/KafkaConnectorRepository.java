@@ -1,6 +1,7 @@
 package com.michelin.ns4kafka.repositories.kafka;
 
 import com.michelin.ns4kafka.models.Connector;
+import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.repositories.ConnectorRepository;
 import io.micronaut.configuration.kafka.annotation.*;
 import io.micronaut.context.annotation.Value;
@@ -9,7 +10,6 @@ import org.apache.kafka.clients.producer.Producer;
 
 import javax.inject.Singleton;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Singleton
 @KafkaListener(
@@ -18,9 +18,12 @@ import java.util.stream.Collectors;
         offsetStrategy = OffsetStrategy.DISABLED
 )
 public class KafkaConnectorRepository extends KafkaStore<Connector> implements ConnectorRepository {
+    private static final String CLUSTER_INDEX = "cluster";
+
     public KafkaConnectorRepository(@Value("${ns4kafka.store.kafka.topics.prefix}.connectors") String kafkaTopic,
                                     @KafkaClient("connectors-producer") Producer<String, Connector> kafkaProducer) {
         super(kafkaTopic, kafkaProducer);
+        addIndex(CLUSTER_INDEX, connector -> connector.getMetadata().getCluster());
     }
 
     @Override
@@ -28,6 +31,22 @@ public class KafkaConnectorRepository extends KafkaStore<Connector> implements C
         return roleBinding.getMetadata().getNamespace() + "/" + roleBinding.getMetadata().getName();
     }
 
+    @Override
+    Connector deduplicate(Connector connector) {
+        KafkaStoreInterner.internMetadata(connector.getMetadata());
+        if (connector.getSpec() != null) {
+            connector.getSpec().setConnectCluster(KafkaStoreInterner.intern(connector.getSpec().getConnectCluster()));
+            // config values can be secrets
+            connector.getSpec().setConfig(KafkaStoreInterner.internKeys(connector.getSpec().getConfig()));
+        }
+        return connector;
+    }
+
+    @Override
+    ObjectMeta getMetadata(Connector connector) {
+        return connector.getMetadata();
+    }
+
     @Topic(value = "${ns4kafka.store.kafka.topics.prefix}.connectors")
     void receive(ConsumerRecord<String, Connector> record) {
         super.receive(record);
@@ -45,9 +64,7 @@ public class KafkaConnectorRepository extends KafkaStore<Connector> implements C
 
     @Override
     public List<Connector> findAllForCluster(String cluster) {
-        return getKafkaStore().values().stream()
-                .filter(connector -> connector.getMetadata().getCluster().equals(cluster))
-                .collect(Collectors.toList());
+        return findAllByIndex(CLUSTER_INDEX, cluster);
     }
 
 }
@@ -1,6 +1,7 @@
 package com.michelin.ns4kafka.repositories.kafka;
 
 import com.michelin.ns4kafka.models.Namespace;
+import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.repositories.NamespaceRepository;
 import io.micronaut.configuration.kafka.annotation.*;
 import io.micronaut.context.annotation.Value;
@@ -10,7 +11,6 @@ import org.apache.kafka.clients.producer.Producer;
 import javax.inject.Singleton;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 
 @Singleton
@@ -20,10 +20,12 @@ import java.util.stream.Collectors;
         offsetStrategy = OffsetStrategy.DISABLED
 )
 public class KafkaNamespaceRepository extends KafkaStore<Namespace> implements NamespaceRepository {
+    private static final String CLUSTER_INDEX = "cluster";
 
     public KafkaNamespaceRepository(@Value("${ns4kafka.store.kafka.topics.prefix}.namespaces") String kafkaTopic,
                                     @KafkaClient("namespace-producer") Producer<String, Namespace> kafkaProducer) {
         super(kafkaTopic, kafkaProducer);
+        addIndex(CLUSTER_INDEX, namespace -> namespace.getMetadata().getCluster());
     }
 
     @Override
@@ -31,6 +33,20 @@ public class KafkaNamespaceRepository extends KafkaStore<Namespace> implements N
         return namespace.getMetadata().getName();
     }
 
+    @Override
+    Namespace deduplicate(Namespace namespace) {
+        KafkaStoreInterner.internMetadata(namespace.getMetadata());
+        if (namespace.getSpec() != null) {
+            namespace.getSpec().setConnectClusters(KafkaStoreInterner.internList(namespace.getSpec().getConnectClusters()));
+        }
+        return namespace;
+    }
+
+    @Override
+    ObjectMeta getMetadata(Namespace namespace) {
+        return namespace.getMetadata();
+    }
+
     @Override
     public Namespace createNamespace(Namespace namespace) {
         return produce(getMessageKey(namespace),namespace);
@@ -49,18 +65,13 @@ public class KafkaNamespaceRepository extends KafkaStore<Namespace> implements N
 
     @Override
     public List<Namespace> findAllForCluster(String cluster) {
-        return getKafkaStore().values()
-                .stream()
-                .filter(namespace -> namespace.getMetadata().getCluster().equals(cluster))
-                .collect(Collectors.toList());
+        return findAllByIndex(CLUSTER_INDEX, cluster);
     }
 
     @Override
     public Optional<Namespace> findByName(String namespace) {
-        return getKafkaStore().values()
-                .stream()
-                .filter(ns -> ns.getMetadata().getName().equals(namespace))
-                .findFirst();
+        // Namespaces are keyed by name
+        return Optional.ofNullable(getKafkaStore().get(namespace));
     }
 
 }
@@ -1,5 +1,6 @@
 package com.michelin.ns4kafka.repositories.kafka;
 
+import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.models.RoleBinding;
 import com.michelin.ns4kafka.repositories.RoleBindingRepository;
 import io.micronaut.configuration.kafka.annotation.*;
@@ -19,6 +20,9 @@ import java.util.stream.Collectors;
         offsetStrategy = OffsetStrategy.DISABLED
 )
 public class KafkaRoleBindingRepository extends KafkaStore<RoleBinding> implements RoleBindingRepository {
+    private static final String NAMESPACE_INDEX = "namespace";
+    private static final String GROUP_INDEX = "group";
+
     /**
      * Constructor
      * @param kafkaTopic The role bindings topic
@@ -27,6 +31,9 @@ public class KafkaRoleBindingRepository extends KafkaStore<RoleBinding> implemen
     public KafkaRoleBindingRepository(@Value("${ns4kafka.store.kafka.topics.prefix}.role-bindings") String kafkaTopic,
                                       @KafkaClient("role-binding-producer") Producer<String, RoleBinding> kafkaProducer) {
         super(kafkaTopic, kafkaProducer);
+        addIndex(NAMESPACE_INDEX, roleBinding -> roleBinding.getMetadata().getNamespace());
+        addIndex(GROUP_INDEX, roleBinding -> roleBinding.getSpec().getSubject().getSubjectType() == RoleBinding.SubjectType.GROUP
+                ? roleBinding.getSpec().getSubject().getSubjectName() : null);
     }
 
     /**
@@ -39,6 +46,17 @@ public class KafkaRoleBindingRepository extends KafkaStore<RoleBinding> implemen
         return roleBinding.getMetadata().getNamespace() + "-" + roleBinding.getMetadata().getName();
     }
 
+    @Override
+    RoleBinding deduplicate(RoleBinding roleBinding) {
+        KafkaStoreInterner.internMetadata(roleBinding.getMetadata());
+        return roleBinding;
+    }
+
+    @Override
+    ObjectMeta getMetadata(RoleBinding roleBinding) {
+        return roleBinding.getMetadata();
+    }
+
     /**
      * Consume messages from role bindings topic
      * @param record The role binding message
@@ -74,12 +92,10 @@ public class KafkaRoleBindingRepository extends KafkaStore<RoleBinding> implemen
      */
     @Override
     public List<RoleBinding> findAllForGroups(Collection<String> groups) {
-        return getKafkaStore().values().stream().filter(roleBinding ->
-                groups.stream().anyMatch(group ->
-                        roleBinding.getSpec().getSubject().getSubjectType() == RoleBinding.SubjectType.GROUP
-                                && roleBinding.getSpec().getSubject().getSubjectName().equals(group)
-                )
-        ).collect(Collectors.toList());
+        return groups.stream()
+                .distinct()
+                .flatMap(group -> findAllByIndex(GROUP_INDEX, group).stream())
+                .collect(Collectors.toList());
     }
 
     /**
@@ -89,8 +105,6 @@ public class KafkaRoleBindingRepository extends KafkaStore<RoleBinding> implemen
      */
     @Override
     public List<RoleBinding> findAllForNamespace(String namespace) {
-        return getKafkaStore().values().stream()
-                .filter(roleBinding -> roleBinding.getMetadata().getNamespace().equals(namespace))
-                .collect(Collectors.toList());
+        return findAllByIndex(NAMESPACE_INDEX, namespace);
     }
 }
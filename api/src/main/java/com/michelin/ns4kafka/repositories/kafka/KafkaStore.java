@@ -1,66 +1,137 @@
 package com.michelin.ns4kafka.repositories.kafka;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import io.micronaut.configuration.kafka.ConsumerAware;
 import io.micronaut.context.ApplicationContext;
 import io.micronaut.context.annotation.Property;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.TaskScheduler;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
 import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigResource;
 import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.errors.TopicExistsException;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.Function;
 
 @Slf4j
-public abstract class KafkaStore<T> {
+public abstract class KafkaStore<T> implements ConsumerRebalanceListener, ConsumerAware<String, T> {
+    /**
+     * Time without records after which a reader positioned past the end offset is done with its fetch
+     */
+    private static final long CATCH_UP_IDLE_MS = 500;
 
     @Inject ApplicationContext applicationContext;
     @Inject AdminClient adminClient;
 
     @Inject KafkaStoreConfig kafkaStoreConfig;
+    @Inject KafkaStoreSnapshotConfig snapshotConfig;
+    @Inject ObjectMapper objectMapper;
 
     @Inject @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler;
 
     private Map<String,T> kafkaStore;
     String kafkaTopic;
     Producer<String,T> kafkaProducer;
-    long offsetInSchemasTopic = -1;
-    long lastWrittenOffset = -1;
+    /**
+     * Highest offset applied by the reader, only ever moves forward
+     */
+    private final AtomicLong offsetInSchemasTopic = new AtomicLong(-1);
+    /**
+     * Offset the initial catch-up waits for, for progress reporting only. Writers track their own offsets.
+     */
+    private volatile long initTargetOffset = -1;
     private final AtomicBoolean initialized = new AtomicBoolean(false);
-    private final ReentrantLock offsetUpdateLock;
-    private final Condition offsetReachedThreshold;
+    private final Map<String, KafkaStoreIndex<T>> indexes = new HashMap<>();
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    /**
+     * Applying an update and notifying the listeners of it is atomic for the readers pausing the updates
+     */
+    private final ReentrantReadWriteLock updateLock = new ReentrantReadWriteLock();
+    private final ConcurrentSkipListMap<Long, CompletableFuture<Void>> offsetWaiters = new ConcurrentSkipListMap<>();
+    /**
+     * Last write of each key, the next write of a key starts once it is applied so that a conditional write
+     * checks the value it replaces. Guarded by itself.
+     */
+    private final Map<String, CompletableFuture<?>> pendingWrites = new HashMap<>();
+    private Consumer<String, T> kafkaConsumer;
+    /**
+     * Next offset the reader fetches, past the records compacted away, as of the last record received
+     */
+    private volatile long readerPosition = -1;
+    private volatile long lastReceiveNanos = System.nanoTime();
+    /**
+     * Offset of the loaded snapshot the consumer must resume after, -1 once consumed or without snapshot
+     */
+    private volatile long snapshotOffset = -1;
+    private volatile long lastSnapshotOffset = -1;
     @Property(name = "ns4kafka.store.kafka.init-timeout")
     int initTimeout;
+    @Value("${ns4kafka.store.kafka.catch-up-strategy:END_OFFSET}")
+    CatchUpStrategy catchUpStrategy = CatchUpStrategy.END_OFFSET;
+
+    /**
+     * How the store finds the offset to catch up to
+     */
+    public enum CatchUpStrategy {
+        /**
+         * Look up the end offset of the topic, no write needed
+         */
+        END_OFFSET,
+        /**
+         * Write a NOOP record and wait for it
+         */
+        NOOP
+    }
 
     public KafkaStore(String kafkaTopic, Producer<String,T> kafkaProducer){
         this.kafkaTopic = kafkaTopic;
         this.kafkaProducer = kafkaProducer;
         this.kafkaStore = new ConcurrentHashMap<String,T>();
-        this.offsetUpdateLock = new ReentrantLock();
-        this.offsetReachedThreshold = offsetUpdateLock.newCondition();
-
     }
     public Map<String,T> getKafkaStore(){
         return kafkaStore;
@@ -68,40 +139,256 @@ public abstract class KafkaStore<T> {
 
     abstract String getMessageKey(T message);
 
+    /**
+     * Share the values repeated across records with the rest of the store before a record read from the topic is stored.
+     * Stores override it with the fields of their model worth deduplicating.
+     * @param message The record value, not null
+     * @return The value to store
+     */
+    T deduplicate(T message) {
+        return message;
+    }
+
+    /**
+     * Access the metadata of a value, to record the offset it was applied at as its resource version
+     * @param message The value, not null
+     * @return The value metadata, or null if it has none
+     */
+    ObjectMeta getMetadata(T message) {
+        return null;
+    }
+
+    /**
+     * Declare a secondary index on this store, to be called from the repository constructor
+     * @param indexName The index name
+     * @param indexKeyExtractor Computes the index key of a value, or null if the value must not be indexed
+     */
+    protected void addIndex(String indexName, Function<T, String> indexKeyExtractor) {
+        indexes.put(indexName, new KafkaStoreIndex<>(indexKeyExtractor));
+    }
+
+    /**
+     * List the store values matching a secondary index key
+     * @param indexName The index name
+     * @param indexKey The index key
+     * @return The matching values
+     */
+    protected List<T> findAllByIndex(String indexName, String indexKey) {
+        KafkaStoreIndex<T> index = indexes.get(indexName);
+        if (index == null) {
+            throw new KafkaStoreException("Unknown index " + indexName + " on store " + kafkaTopic);
+        }
+        indexLock.readLock().lock();
+        try {
+            return index.get(indexKey);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
     T produce(String key, T message) throws KafkaStoreException {
+        return await(produceAsync(key, message));
+    }
+
+    /**
+     * Send a record to the store topic without blocking
+     * @param key The record key
+     * @param message The record value, null for a tombstone
+     * @return A future of the value of the key, completed once the local store has applied the record
+     */
+    CompletableFuture<T> produceAsync(String key, T message) {
         if (key == null) {
+            return CompletableFuture.failedFuture(new KafkaStoreException("Key should not be null"));
+        }
+        return writeInOrder(List.of(key), () -> send(key, message)
+                .thenCompose(recordMetadata -> {
+                    log.trace("Waiting for the local store to catch up to offset {}", recordMetadata.offset());
+                    return waitUntilOffsetAsync(recordMetadata.offset());
+                })
+                .thenApply(unused -> kafkaStore.get(key))
+                .orTimeout(initTimeout, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Send a batch of records to the store topic, then wait once for the local store to apply them all
+     * @param messages The record values by key, null values for tombstones
+     * @return The values of the keys once applied
+     * @throws KafkaStoreException if a record can't be written or the local store doesn't catch up in time
+     */
+    Map<String, T> produceAll(Map<String, T> messages) throws KafkaStoreException {
+        return produceAll(messages, false);
+    }
+
+    /**
+     * Send a batch of records only for the keys unchanged since the values were read, so that data derived from
+     * a value, such as a status, doesn't overwrite a concurrent update. The check runs before the records are sent,
+     * once the previous writes of the keys are applied: every record in the topic applies unconditionally on replay.
+     * @param messages The record values by key, read from the store
+     * @return The values of the keys once applied, the concurrent ones for the records not sent
+     * @throws KafkaStoreException if a record can't be written or the local store doesn't catch up in time
+     */
+    Map<String, T> produceAllIfUnchanged(Map<String, T> messages) throws KafkaStoreException {
+        return produceAll(messages, true);
+    }
+
+    private Map<String, T> produceAll(Map<String, T> messages, boolean ifUnchanged) throws KafkaStoreException {
+        // containsKey(null) throws on the maps rejecting null keys
+        if (messages.keySet().stream().anyMatch(Objects::isNull)) {
             throw new KafkaStoreException("Key should not be null");
         }
-        T oldValue = kafkaStore.get(key);
+        if (messages.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, T> batch = new LinkedHashMap<>(messages);
+        await(writeInOrder(batch.keySet(), () -> {
+            List<CompletableFuture<RecordMetadata>> acks = new ArrayList<>(batch.size());
+            batch.forEach((key, message) -> {
+                if (!ifUnchanged || isUnchanged(key, message)) {
+                    acks.add(send(key, message));
+                } else {
+                    log.debug("Not writing {}, the key changed since it was read", key);
+                }
+            });
+            if (acks.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            kafkaProducer.flush();
+
+            return CompletableFuture.allOf(acks.toArray(new CompletableFuture[0]))
+                    .thenCompose(unused -> {
+                        long lastOffset = acks.stream().mapToLong(ack -> ack.join().offset()).max().getAsLong();
+                        log.trace("Waiting for the local store to catch up to offset {}", lastOffset);
+                        return waitUntilOffsetAsync(lastOffset);
+                    })
+                    .orTimeout(initTimeout, TimeUnit.MILLISECONDS);
+        }));
+
+        Map<String, T> applyResults = new LinkedHashMap<>();
+        messages.keySet().forEach(key -> applyResults.put(key, kafkaStore.get(key)));
+        return applyResults;
+    }
+
+    /**
+     * Run a write once the previous writes of its keys are done, whatever their outcome
+     * @param keys The keys written
+     * @param write The write, sending the records and waiting for the local store to apply them
+     * @return A future of the result of the write
+     */
+    private <R> CompletableFuture<R> writeInOrder(Collection<String> keys, Supplier<CompletableFuture<R>> write) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        CompletableFuture<Void> previousWrites;
+        synchronized (pendingWrites) {
+            previousWrites = CompletableFuture.allOf(keys.stream()
+                    .map(pendingWrites::get)
+                    .filter(Objects::nonNull)
+                    .toArray(CompletableFuture[]::new));
+            keys.forEach(key -> pendingWrites.put(key, result));
+        }
+        result.whenComplete((unused, e) -> {
+            synchronized (pendingWrites) {
+                keys.forEach(key -> pendingWrites.remove(key, result));
+            }
+        });
+
+        // the previous writes complete on the reader thread, which must not send
+        CompletableFuture<Void> ready = previousWrites.isDone()
+                ? CompletableFuture.completedFuture(null)
+                : previousWrites.handleAsync((unused, e) -> null);
+        ready.thenCompose(unused -> write.get())
+                .whenComplete((value, e) -> {
+                    if (e == null) {
+                        result.complete(value);
+                    } else {
+                        result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    }
+                });
+        return result;
+    }
 
+    /**
+     * Check whether a value read from the store is still the current value of its key
+     * @param key The store key
+     * @param message The value read, with its resource version
+     * @return true if the key is still at the resource version of the value
+     */
+    private boolean isUnchanged(String key, T message) {
+        T current = kafkaStore.get(key);
+        return current != null && getResourceVersion(current) == getResourceVersion(message);
+    }
 
-        boolean knownSuccessfulWrite = false;
+    private CompletableFuture<RecordMetadata> send(String key, T message) {
+        CompletableFuture<RecordMetadata> ack = new CompletableFuture<>();
         try {
             ProducerRecord<String,T> producerRecord = new ProducerRecord<>(kafkaTopic, key, message);
             log.trace("Sending record to KafkaStore topic: {}", producerRecord);
-            Future<RecordMetadata> ack = kafkaProducer.send(producerRecord);
-            RecordMetadata recordMetadata = ack.get(initTimeout, TimeUnit.MILLISECONDS);
+            kafkaProducer.send(producerRecord, (recordMetadata, exception) -> {
+                if (exception != null) {
+                    ack.completeExceptionally(new KafkaStoreException("Put operation failed while waiting for an ack from Kafka", exception));
+                } else {
+                    ack.complete(recordMetadata);
+                }
+            });
+        } catch (KafkaException ke) {
+            ack.completeExceptionally(new KafkaStoreException("Put operation to Kafka failed", ke));
+        }
+        return ack;
+    }
 
-            log.trace("Waiting for the local store to catch up to offset {}", recordMetadata.offset());
-            this.lastWrittenOffset = recordMetadata.offset();
-            waitUntilKafkaReaderReachesLastOffset(initTimeout);
-            knownSuccessfulWrite = true;
+    private <R> R await(CompletableFuture<R> future) throws KafkaStoreException {
+        try {
+            return future.get(initTimeout, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new KafkaStoreException("Put operation interrupted while waiting for an ack from Kafka", e);
         } catch (ExecutionException e) {
+            if (e.getCause() instanceof KafkaStoreException) {
+                throw (KafkaStoreException) e.getCause();
+            }
             throw new KafkaStoreException("Put operation failed while waiting for an ack from Kafka", e);
         } catch (TimeoutException e) {
             throw new KafkaStoreException(
                     "Put operation timed out while waiting for an ack from Kafka", e);
-        } catch (KafkaException ke) {
-            throw new KafkaStoreException("Put operation to Kafka failed", ke);
-        } finally {
-            if (!knownSuccessfulWrite) {
-                this.lastWrittenOffset = -1;
-            }
         }
-        return kafkaStore.get(key);
     }
+
+    /**
+     * Get a future completed once the local store has read the given offset.
+     * Waiters are keyed by offset, so each one is only woken once its own offset is read.
+     * @param offset The offset to reach
+     * @return The future
+     */
+    private CompletableFuture<Void> waitUntilOffsetAsync(long offset) {
+        if (offsetInSchemasTopic.get() >= offset) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = offsetWaiters.computeIfAbsent(offset, o -> new CompletableFuture<>());
+        // the reader may have passed the offset before the waiter was registered
+        long offsetReached = offsetInSchemasTopic.get();
+        if (offsetReached >= offset) {
+            completeOffsetWaiters(offsetReached);
+        }
+        return waiter;
+    }
+
+    /**
+     * Move the read watermark forward and wake the writers waiting for an offset up to it
+     * @param offset The offset just read
+     */
+    private void advanceOffset(long offset) {
+        long offsetReached = offsetInSchemasTopic.accumulateAndGet(offset, Math::max);
+        completeOffsetWaiters(offsetReached);
+    }
+
+    private void completeOffsetWaiters(long offsetReached) {
+        Map<Long, CompletableFuture<Void>> reached = offsetWaiters.headMap(offsetReached, true);
+        reached.forEach((offset, waiter) -> {
+            if (reached.remove(offset, waiter)) {
+                waiter.complete(null);
+            }
+        });
+    }
+
     // mimics /core/src/main/java/io/confluent/kafka/schemaregistry/storage/KafkaStoreReaderThread.java#L326 doWork
     void receive(ConsumerRecord<String, T> record) {
         try
@@ -109,45 +396,225 @@ public abstract class KafkaStore<T> {
             String messageKey = record.key();
             if (messageKey.equals("NOOP")) {
                 // If it's a noop, update local offset counter and do nothing else
-                try {
-                    offsetUpdateLock.lock();
-                    offsetInSchemasTopic = record.offset();
-                    offsetReachedThreshold.signalAll();
-                } finally {
-                    offsetUpdateLock.unlock();
-                }
+                advanceOffset(record.offset());
             } else {
-                T message = record.value();
+                T message = record.value() == null ? null : deduplicate(record.value());
 
                 log.trace("Applying update ({},{}) to the local store", messageKey, message);
                 long offset = record.offset();
-
-                T oldMessage;
-                if (message == null) {
-                    oldMessage = kafkaStore.remove(messageKey);
-                } else {
-                    oldMessage = kafkaStore.put(messageKey, message);
+                ObjectMeta metadata = message == null ? null : getMetadata(message);
+                if (metadata != null) {
+                    metadata.setResourceVersion(offset);
                 }
 
+                updateLock.writeLock().lock();
                 try {
-                    offsetUpdateLock.lock();
-                    offsetInSchemasTopic = record.offset();
-                    offsetReachedThreshold.signalAll();
+                    T oldMessage = apply(messageKey, message);
+                    if (oldMessage != null || message != null) {
+                        publishEvent(new KafkaStoreEvent<>(messageKey, oldMessage, message, offset));
+                    }
                 } finally {
-                    offsetUpdateLock.unlock();
+                    updateLock.writeLock().unlock();
                 }
 
+                advanceOffset(offset);
+
             }
+            updateReaderPosition(record);
         } catch (RuntimeException e) {
             log.error("KafkaStoreReader thread has died for an unknown reason.", e);
             throw new RuntimeException(e);
         }
     }
 
+    private long getResourceVersion(T message) {
+        ObjectMeta metadata = message == null ? null : getMetadata(message);
+        return metadata == null ? -1 : metadata.getResourceVersion();
+    }
+
+    /**
+     * Track how far the reader fetched, called on the reader thread only as the consumer isn't thread safe
+     * @param record The record just received
+     */
+    private void updateReaderPosition(ConsumerRecord<String, T> record) {
+        long position = record.offset() + 1;
+        if (kafkaConsumer != null) {
+            position = Math.max(position, kafkaConsumer.position(new TopicPartition(record.topic(), record.partition())));
+        }
+        readerPosition = position;
+        lastReceiveNanos = System.nanoTime();
+    }
+
+    /**
+     * Apply an update to the local store and its secondary indexes, atomically for index readers
+     * @param key The store key
+     * @param message The new value, null for a tombstone
+     * @return The previous value of the key
+     */
+    private T apply(String key, T message) {
+        indexLock.writeLock().lock();
+        try {
+            T oldMessage = message == null ? kafkaStore.remove(key) : kafkaStore.put(key, message);
+            for (KafkaStoreIndex<T> index : indexes.values()) {
+                index.update(key, oldMessage, message);
+            }
+            return oldMessage;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Notify the store listeners of an applied update. A failing listener must not stop the store reader.
+     * @param event The store event
+     */
+    private void publishEvent(KafkaStoreEvent<T> event) {
+        try {
+            applicationContext.publishEvent(event);
+        } catch (Exception e) {
+            log.error("Error while notifying listeners of {} on {}", event.isReset() ? "reset" : "update " + event.getKey(), kafkaTopic, e);
+        }
+    }
+
     @PostConstruct
     private void createOrVerifyTopic() throws KafkaStoreException {
+        loadSnapshot();
         createOrVerifySchemaTopic(kafkaTopic);
         taskScheduler.schedule(Duration.ZERO, this::waitUntilKafkaReaderReachesLastOffsetInit);
+        if (snapshotConfig.isEnabled()) {
+            taskScheduler.scheduleWithFixedDelay(snapshotConfig.getInterval(), snapshotConfig.getInterval(), this::writeSnapshot);
+        }
+    }
+
+    @Override
+    public void setKafkaConsumer(Consumer<String, T> kafkaConsumer) {
+        this.kafkaConsumer = kafkaConsumer;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        long resumeOffset = snapshotOffset;
+        if (resumeOffset < 0 || kafkaConsumer == null) {
+            return;
+        }
+        // later assignments replay the topic as usual
+        snapshotOffset = -1;
+        Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
+        for (TopicPartition partition : partitions) {
+            Long endOffset = endOffsets.get(partition);
+            if (endOffset != null && endOffset > resumeOffset) {
+                log.info("Resuming {} after snapshot offset {}", partition, resumeOffset);
+                kafkaConsumer.seek(partition, resumeOffset + 1);
+            } else {
+                // the topic was recreated since the snapshot
+                log.warn("Snapshot offset {} is beyond the end offset {} of {}, replaying it from the beginning",
+                        resumeOffset, endOffset, partition);
+                clearLocalStore();
+                kafkaConsumer.seekToBeginning(Collections.singleton(partition));
+            }
+        }
+        // the snapshot load happens while the store is created, before any listener can be notified:
+        // they rebuild what they derived from the store from here, on the reader thread
+        publishEvent(KafkaStoreEvent.reset(getValueType(), offsetInSchemasTopic.get()));
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        // nothing to commit, offsets are not stored in Kafka
+    }
+
+    /**
+     * Fill the local store from the snapshot file, if any, so that the consumer only reads the records written since
+     */
+    void loadSnapshot() {
+        if (!snapshotConfig.isEnabled()) {
+            return;
+        }
+        Path snapshotFile = getSnapshotFile();
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try {
+            KafkaStoreSnapshot snapshot = KafkaStoreSnapshot.read(snapshotFile);
+            if (snapshot.getTimestamp() < System.currentTimeMillis() - snapshotConfig.getMaxAge().toMillis()) {
+                log.info("Ignoring snapshot {} older than {}", snapshotFile, snapshotConfig.getMaxAge());
+                return;
+            }
+            Class<T> valueType = getValueType();
+            for (Map.Entry<String, byte[]> entry : snapshot.getEntries().entrySet()) {
+                apply(entry.getKey(), deduplicate(objectMapper.readValue(entry.getValue(), valueType)));
+            }
+            offsetInSchemasTopic.set(snapshot.getOffset());
+            snapshotOffset = snapshot.getOffset();
+            lastSnapshotOffset = snapshot.getOffset();
+            log.info("Loaded {} records of {} from snapshot up to offset {}", snapshot.getEntries().size(), kafkaTopic, snapshot.getOffset());
+        } catch (IOException e) {
+            log.warn("Failed to load snapshot {}, replaying {} from the beginning", snapshotFile, kafkaTopic, e);
+            clearLocalStore();
+        }
+    }
+
+    /**
+     * Write the local store and the offset it reflects to the snapshot file
+     */
+    @PreDestroy
+    void writeSnapshot() {
+        if (!snapshotConfig.isEnabled() || !isInitialized()) {
+            return;
+        }
+        long offset;
+        Map<String, T> entries;
+        indexLock.readLock().lock();
+        try {
+            // the reader moves the offset after applying a record: the copy may be ahead of the offset, never behind,
+            // and replaying a record already applied is harmless
+            offset = offsetInSchemasTopic.get();
+            entries = new HashMap<>(kafkaStore);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        if (offset < 0 || offset == lastSnapshotOffset) {
+            return;
+        }
+        try {
+            Map<String, byte[]> serializedEntries = new HashMap<>();
+            for (Map.Entry<String, T> entry : entries.entrySet()) {
+                serializedEntries.put(entry.getKey(), objectMapper.writeValueAsBytes(entry.getValue()));
+            }
+            new KafkaStoreSnapshot(offset, System.currentTimeMillis(), serializedEntries).write(getSnapshotFile());
+            lastSnapshotOffset = offset;
+            log.debug("Wrote snapshot of {} up to offset {}", kafkaTopic, offset);
+        } catch (IOException e) {
+            log.warn("Failed to write snapshot of {}", kafkaTopic, e);
+        }
+    }
+
+    private void clearLocalStore() {
+        indexLock.writeLock().lock();
+        try {
+            new HashSet<>(kafkaStore.keySet()).forEach(key -> apply(key, null));
+            offsetInSchemasTopic.set(-1);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private Path getSnapshotFile() {
+        return Paths.get(snapshotConfig.getDirectory(), kafkaTopic + ".snapshot");
+    }
+
+    /**
+     * Resolve the value type of the concrete store from its declaration
+     * @return The store value type
+     */
+    @SuppressWarnings("unchecked")
+    public Class<T> getValueType() {
+        Class<?> storeClass = getClass();
+        while (storeClass.getSuperclass() != KafkaStore.class) {
+            storeClass = storeClass.getSuperclass();
+        }
+        Type valueType = ((ParameterizedType) storeClass.getGenericSuperclass()).getActualTypeArguments()[0];
+        return (Class<T>) (valueType instanceof ParameterizedType ? ((ParameterizedType) valueType).getRawType() : valueType);
     }
     public void waitUntilKafkaReaderReachesLastOffsetInit(){
         try {
@@ -164,21 +631,87 @@ public abstract class KafkaStore<T> {
 
     // BEGIN http://www.confluent.io/confluent-community-license
     public void waitUntilKafkaReaderReachesLastOffset(int timeoutMs) throws KafkaStoreException {
-        long offsetOfLastMessage = getLatestOffset(timeoutMs);
-        waitUntilOffset(offsetOfLastMessage, timeoutMs, TimeUnit.MILLISECONDS);
+        if (catchUpStrategy == CatchUpStrategy.NOOP) {
+            waitUntilKafkaReaderReaches(getLatestOffset(timeoutMs), timeoutMs);
+            return;
+        }
+
+        long offsetOfLastMessage = getLastRecordOffset(timeoutMs);
+        if (offsetOfLastMessage < 0) {
+            log.trace("KafkaStore topic {} is empty, nothing to catch up", kafkaTopic);
+            return;
+        }
+        if (!isInitialized()) {
+            initTargetOffset = offsetOfLastMessage;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        CompletableFuture<Void> reached = waitUntilOffsetAsync(offsetOfLastMessage);
+        while (true) {
+            try {
+                reached.get(CATCH_UP_IDLE_MS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new KafkaStoreException("Interrupted while waiting for the background store reader thread to reach"
+                        + " the specified offset: " + offsetOfLastMessage, e);
+            } catch (ExecutionException e) {
+                throw new KafkaStoreException("KafkaStoreReaderThread failed to reach offset " + offsetOfLastMessage, e);
+            } catch (TimeoutException e) {
+                // the last records can be tombstones compacted away since the lookup, the reader never gets them.
+                // The consumer position covers a whole fetch before its records are received: once it is past
+                // the offset, the reader must also be done with the records fetched.
+                if (readerPosition > offsetOfLastMessage
+                        && System.nanoTime() - lastReceiveNanos >= TimeUnit.MILLISECONDS.toNanos(CATCH_UP_IDLE_MS)) {
+                    log.info("KafkaStoreReaderThread fetched past offset {} of {}, the records up to it were compacted away",
+                            offsetOfLastMessage, kafkaTopic);
+                    return;
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new KafkaStoreException("KafkaStoreReaderThread failed to reach target offset within the timeout interval. "
+                            + "targetOffset: " + offsetOfLastMessage + ", offsetReached: " + offsetInSchemasTopic.get()
+                            + ", readerPosition: " + readerPosition + ", timeout(ms): " + timeoutMs, e);
+                }
+            }
+        }
     }
-    private long getLatestOffset(int timeoutMs) throws KafkaStoreException {
-        if (this.lastWrittenOffset >= 0) {
-            return this.lastWrittenOffset;
+
+    private void waitUntilKafkaReaderReaches(long offset, int timeoutMs) throws KafkaStoreException {
+        if (!isInitialized()) {
+            initTargetOffset = offset;
+        }
+        waitUntilOffset(offset, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Find the offset of the last record of the topic from its end offset, without writing to it
+     * @param timeoutMs The lookup timeout
+     * @return The offset of the last record, -1 if the topic is empty
+     * @throws KafkaStoreException if the offsets can't be listed
+     */
+    private long getLastRecordOffset(int timeoutMs) throws KafkaStoreException {
+        TopicPartition topicPartition = new TopicPartition(kafkaTopic, 0);
+        try {
+            ListOffsetsResult endOffsets = adminClient.listOffsets(Map.of(topicPartition, OffsetSpec.latest()));
+            ListOffsetsResult startOffsets = adminClient.listOffsets(Map.of(topicPartition, OffsetSpec.earliest()));
+            long endOffset = endOffsets.partitionResult(topicPartition).get(timeoutMs, TimeUnit.MILLISECONDS).offset();
+            long startOffset = startOffsets.partitionResult(topicPartition).get(timeoutMs, TimeUnit.MILLISECONDS).offset();
+            log.trace("KafkaStore topic {} offsets are [{}, {})", kafkaTopic, startOffset, endOffset);
+            return endOffset > startOffset ? endOffset - 1 : -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaStoreException("Interrupted while listing the offsets of kafka store.", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaStoreException("Failed to list the offsets of kafka store.", e);
         }
+    }
 
+    private long getLatestOffset(int timeoutMs) throws KafkaStoreException {
         try {
             log.trace("Sending Noop record to KafkaStore to find last offset.");
             Future<RecordMetadata> ack = kafkaProducer.send(new ProducerRecord<>(kafkaTopic,"NOOP",null));
             RecordMetadata metadata = ack.get(initTimeout, TimeUnit.MILLISECONDS);
-            this.lastWrittenOffset = metadata.offset();
-            log.trace("Noop record's offset is {}", this.lastWrittenOffset);
-            return this.lastWrittenOffset;
+            log.trace("Noop record's offset is {}", metadata.offset());
+            return metadata.offset();
         } catch (Exception e) {
             throw new KafkaStoreException("Failed to write Noop record to kafka store.", e);
         }
@@ -210,28 +743,19 @@ public abstract class KafkaStore<T> {
             throw new KafkaStoreException("KafkaStoreReaderThread can't wait for a negative offset.");
         }
 
-        log.trace("Waiting to read offset {}. Currently at offset {}", offset, offsetInSchemasTopic);
+        log.trace("Waiting to read offset {}. Currently at offset {}", offset, offsetInSchemasTopic.get());
 
         try {
-            offsetUpdateLock.lock();
-            long timeoutNs = TimeUnit.NANOSECONDS.convert(timeout, timeUnit);
-            while ((offsetInSchemasTopic < offset) && (timeoutNs > 0)) {
-                try {
-                    timeoutNs = offsetReachedThreshold.awaitNanos(timeoutNs);
-                } catch (InterruptedException e) {
-                    log.debug("Interrupted while waiting for the background store reader thread to reach"
-                            + " the specified offset: " + offset, e);
-                }
-            }
-        } finally {
-            offsetUpdateLock.unlock();
-        }
-
-        if (offsetInSchemasTopic < offset) {
+            waitUntilOffsetAsync(offset).get(timeout, timeUnit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaStoreException("Interrupted while waiting for the background store reader thread to reach"
+                    + " the specified offset: " + offset, e);
+        } catch (ExecutionException | TimeoutException e) {
             throw new KafkaStoreException(
                     "KafkaStoreReaderThread failed to reach target offset within the timeout interval. "
-                            + "targetOffset: " + offset + ", offsetReached: " + offsetInSchemasTopic
-                            + ", timeout(ms): " + TimeUnit.MILLISECONDS.convert(timeout, timeUnit));
+                            + "targetOffset: " + offset + ", offsetReached: " + offsetInSchemasTopic.get()
+                            + ", timeout(ms): " + TimeUnit.MILLISECONDS.convert(timeout, timeUnit), e);
         }
     }
 
@@ -325,6 +849,28 @@ public abstract class KafkaStore<T> {
         }
     }
 
+    /**
+     * The offset of the last record of the store topic applied to the local store
+     * @return The offset, -1 if nothing was read yet
+     */
+    /**
+     * Run an action while no update is applied, so that the values it reads are exactly the ones preceding
+     * the events published once it returns
+     * @param action The action
+     */
+    public void withUpdatesPaused(Runnable action) {
+        updateLock.readLock().lock();
+        try {
+            action.run();
+        } finally {
+            updateLock.readLock().unlock();
+        }
+    }
+
+    public long getOffset() {
+        return offsetInSchemasTopic.get();
+    }
+
     public boolean isInitialized(){
         return initialized.get();
     }
@@ -358,7 +904,7 @@ public abstract class KafkaStore<T> {
         if (isInitialized()) {
             log.info("Catchup Progess for {} : READY (Store size : {})", kafkaTopic, kafkaStore.size());
         } else {
-            log.info("Catchup Progess for {} : {}/{}", kafkaTopic, offsetInSchemasTopic, lastWrittenOffset);
+            log.info("Catchup Progess for {} : {}/{}", kafkaTopic, offsetInSchemasTopic.get(), initTargetOffset);
         }
     }
 }
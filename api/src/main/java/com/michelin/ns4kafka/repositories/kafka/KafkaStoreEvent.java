@@ -0,0 +1,59 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import lombok.Getter;
+
+/**
+ * Published by a KafkaStore each time an update from its topic is applied to the local store,
+ * or once the local store was replaced as a whole by a snapshot load or a clear
+ * @param <T> The store value type
+ */
+@Getter
+public class KafkaStoreEvent<T> {
+    private final String key;
+    private final T oldValue;
+    private final T newValue;
+    private final long offset;
+    /**
+     * The store value type of a reset event, null otherwise
+     */
+    private final Class<T> resetType;
+
+    public KafkaStoreEvent(String key, T oldValue, T newValue, long offset) {
+        this(key, oldValue, newValue, offset, null);
+    }
+
+    private KafkaStoreEvent(String key, T oldValue, T newValue, long offset, Class<T> resetType) {
+        this.key = key;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.offset = offset;
+        this.resetType = resetType;
+    }
+
+    /**
+     * Build the event of a local store replaced as a whole, the listeners rebuild what they derived from the store
+     * @param type The store value type
+     * @param offset The offset the local store reflects after the reset
+     * @param <T> The store value type
+     * @return The reset event
+     */
+    public static <T> KafkaStoreEvent<T> reset(Class<T> type, long offset) {
+        return new KafkaStoreEvent<>(null, null, null, offset, type);
+    }
+
+    public boolean isReset() {
+        return resetType != null;
+    }
+
+    /**
+     * Check whether this event comes from a store of the given type
+     * @param type The store value type
+     * @return true if the updated value is of the given type
+     */
+    public boolean isOf(Class<?> type) {
+        if (isReset()) {
+            return type.isAssignableFrom(resetType);
+        }
+        return type.isInstance(newValue != null ? newValue : oldValue);
+    }
+}
@@ -0,0 +1,59 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Secondary index of a KafkaStore, grouping the store entries by an index key extracted from their value.
+ * Not thread-safe on its own : the owning KafkaStore guards every access with its index lock.
+ * @param <T> The store value type
+ */
+class KafkaStoreIndex<T> {
+    private final Function<T, String> indexKeyExtractor;
+    private final Map<String, Map<String, T>> entries = new HashMap<>();
+
+    /**
+     * Constructor
+     * @param indexKeyExtractor Computes the index key of a value, or null if the value must not be indexed
+     */
+    KafkaStoreIndex(Function<T, String> indexKeyExtractor) {
+        this.indexKeyExtractor = indexKeyExtractor;
+    }
+
+    /**
+     * Apply a store update to the index
+     * @param key The store key
+     * @param oldValue The previous value of the key, null if absent
+     * @param newValue The new value of the key, null for a tombstone
+     */
+    void update(String key, T oldValue, T newValue) {
+        if (oldValue != null) {
+            String oldIndexKey = indexKeyExtractor.apply(oldValue);
+            if (oldIndexKey != null) {
+                Map<String, T> bucket = entries.get(oldIndexKey);
+                if (bucket != null) {
+                    bucket.remove(key);
+                    if (bucket.isEmpty()) {
+                        entries.remove(oldIndexKey);
+                    }
+                }
+            }
+        }
+        if (newValue != null) {
+            String newIndexKey = indexKeyExtractor.apply(newValue);
+            if (newIndexKey != null) {
+                entries.computeIfAbsent(newIndexKey, k -> new HashMap<>()).put(key, newValue);
+            }
+        }
+    }
+
+    /**
+     * List the values matching an index key
+     * @param indexKey The index key
+     * @return A copy of the matching values
+     */
+    List<T> get(String indexKey) {
+        Map<String, T> bucket = entries.get(indexKey);
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+    }
+}
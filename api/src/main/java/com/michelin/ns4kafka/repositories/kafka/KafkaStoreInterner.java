@@ -0,0 +1,91 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.michelin.ns4kafka.models.ObjectMeta;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Deduplicates the values repeated across the records of the stores: cluster and namespace names, config keys and values,
+ * identical config maps. Canonical instances are only weakly held, they go away with the last record using them.
+ * Only immutable values are shared: strings, and maps and lists returned unmodifiable.
+ */
+final class KafkaStoreInterner {
+    private static final Map<Object, WeakReference<Object>> CANONICAL_VALUES = new WeakHashMap<>();
+
+    private KafkaStoreInterner() {
+    }
+
+    static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    /**
+     * Get the canonical instance of a value
+     * @param value The value
+     * @param <V> The value type, with value-based equals and hashCode
+     * @return The first instance equal to the value still in use, or the value itself
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> V canonical(V value) {
+        if (value == null) {
+            return null;
+        }
+        synchronized (CANONICAL_VALUES) {
+            WeakReference<Object> reference = CANONICAL_VALUES.get(value);
+            Object canonicalValue = reference == null ? null : reference.get();
+            if (canonicalValue == null) {
+                CANONICAL_VALUES.put(value, new WeakReference<>(value));
+                return value;
+            }
+            return (V) canonicalValue;
+        }
+    }
+
+    /**
+     * Get the canonical unmodifiable copy of a map, keeping its iteration order
+     * @param map The map
+     * @return The shared map
+     */
+    static Map<String, String> internMap(Map<String, String> map) {
+        if (map == null) {
+            return null;
+        }
+        Map<String, String> internedMap = new LinkedHashMap<>();
+        map.forEach((key, value) -> internedMap.put(intern(key), intern(value)));
+        return canonical(Collections.unmodifiableMap(internedMap));
+    }
+
+    /**
+     * Get an unmodifiable copy of a map with its keys interned, for the maps whose values may be secrets:
+     * interned strings stay in the JVM string table
+     * @param map The map
+     * @return The copy, keeping the iteration order
+     */
+    static Map<String, String> internKeys(Map<String, String> map) {
+        if (map == null) {
+            return null;
+        }
+        Map<String, String> internedMap = new LinkedHashMap<>();
+        map.forEach((key, value) -> internedMap.put(intern(key), value));
+        return Collections.unmodifiableMap(internedMap);
+    }
+
+    static List<String> internList(List<String> list) {
+        if (list == null) {
+            return null;
+        }
+        List<String> internedList = new ArrayList<>(list.size());
+        list.forEach(value -> internedList.add(intern(value)));
+        return canonical(Collections.unmodifiableList(internedList));
+    }
+
+    static void internMetadata(ObjectMeta metadata) {
+        if (metadata == null) {
+            return;
+        }
+        metadata.setNamespace(intern(metadata.getNamespace()));
+        metadata.setCluster(intern(metadata.getCluster()));
+        metadata.setLabels(internMap(metadata.getLabels()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Serde of the store topic values.
+ * Binary records are Smile documents behind a leading magic byte, which can't start a JSON document,
+ * so records written as JSON before the switch to binary still load.
+ * @param <T> The store value type
+ */
+public class KafkaStoreSerde<T> implements Serde<T>, Serializer<T>, Deserializer<T> {
+    /**
+     * Leading byte of the binary records, bump for an incompatible encoding
+     */
+    static final byte MAGIC_BINARY_V1 = 0x01;
+
+    private final Class<T> type;
+    private final Format format;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper binaryMapper;
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    public KafkaStoreSerde(Class<T> type, Format format, ObjectMapper jsonMapper, ObjectMapper binaryMapper) {
+        this.type = type;
+        this.format = format;
+        this.jsonMapper = jsonMapper;
+        this.binaryMapper = binaryMapper;
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            if (format == Format.JSON) {
+                return jsonMapper.writeValueAsBytes(data);
+            }
+            byte[] document = binaryMapper.writeValueAsBytes(data);
+            byte[] bytes = new byte[document.length + 1];
+            bytes[0] = MAGIC_BINARY_V1;
+            System.arraycopy(document, 0, bytes, 1, document.length);
+            return bytes;
+        } catch (IOException e) {
+            throw new SerializationException("Error serializing " + type.getSimpleName() + " for " + topic, e);
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            if (data[0] == MAGIC_BINARY_V1) {
+                return binaryMapper.readValue(data, 1, data.length - 1, type);
+            }
+            return jsonMapper.readValue(data, type);
+        } catch (IOException e) {
+            throw new SerializationException("Error deserializing " + type.getSimpleName() + " from " + topic, e);
+        }
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        // configured by KafkaStoreSerdeRegistry
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    @Override
+    public Serializer<T> serializer() {
+        return this;
+    }
+
+    @Override
+    public Deserializer<T> deserializer() {
+        return this;
+    }
+}
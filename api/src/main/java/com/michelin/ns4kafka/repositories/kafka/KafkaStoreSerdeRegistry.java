@@ -0,0 +1,59 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.michelin.ns4kafka.models.*;
+import io.micronaut.configuration.kafka.serde.SerdeRegistry;
+import io.micronaut.context.annotation.Value;
+import org.apache.kafka.common.serialization.Serde;
+
+import javax.inject.Singleton;
+import java.util.Set;
+
+/**
+ * Provides the serdes of the store topics to the store producers and listeners, ahead of the default JSON serdes
+ */
+@Singleton
+public class KafkaStoreSerdeRegistry implements SerdeRegistry {
+    private static final Set<Class<?>> STORE_TYPES = Set.of(
+            Namespace.class,
+            Topic.class,
+            AccessControlEntry.class,
+            RoleBinding.class,
+            Connector.class,
+            KafkaStream.class);
+
+    private final KafkaStoreSerde.Format format;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper binaryMapper;
+
+    public KafkaStoreSerdeRegistry(@Value("${ns4kafka.store.kafka.serde:JSON}") KafkaStoreSerde.Format format,
+                                   ObjectMapper objectMapper) {
+        this.format = format;
+        this.jsonMapper = objectMapper;
+        // repeated values such as cluster names and config values are written once per record
+        this.binaryMapper = new ObjectMapper(SmileFactory.builder()
+                        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                        .build())
+                .findAndRegisterModules()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public <T> Serde<T> getSerde(Class<T> type) {
+        if (!STORE_TYPES.contains(type)) {
+            // let the default registry handle it
+            return null;
+        }
+        return new KafkaStoreSerde<>(type, format, jsonMapper, binaryMapper);
+    }
+
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE;
+    }
+}
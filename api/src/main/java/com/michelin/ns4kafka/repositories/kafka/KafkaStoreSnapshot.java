@@ -0,0 +1,98 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import lombok.Getter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local copy of a KafkaStore content up to a topic offset.
+ * Binary layout: magic, version, offset, creation timestamp, entry count, then each entry as
+ * length-prefixed UTF-8 key and length-prefixed serialized value.
+ */
+@Getter
+class KafkaStoreSnapshot {
+    private static final int MAGIC = 0x4E534B53;
+    private static final byte VERSION = 1;
+
+    private final long offset;
+    private final long timestamp;
+    private final Map<String, byte[]> entries;
+
+    KafkaStoreSnapshot(long offset, long timestamp, Map<String, byte[]> entries) {
+        this.offset = offset;
+        this.timestamp = timestamp;
+        this.entries = entries;
+    }
+
+    /**
+     * Write the snapshot to a temporary file then move it in place, so a crash never leaves a truncated snapshot
+     * @param file The snapshot file
+     * @throws IOException if the file can't be written
+     */
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(tmpFile);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeLong(offset);
+            output.writeLong(timestamp);
+            output.writeInt(entries.size());
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(key.length);
+                output.write(key);
+                output.writeInt(entry.getValue().length);
+                output.write(entry.getValue());
+            }
+        }
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a snapshot file through a memory mapping
+     * @param file The snapshot file
+     * @return The snapshot
+     * @throws IOException if the file can't be read or isn't a snapshot
+     */
+    static KafkaStoreSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a KafkaStore snapshot: " + file);
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported KafkaStore snapshot version " + version + ": " + file);
+            }
+            long offset = buffer.getLong();
+            long timestamp = buffer.getLong();
+            int size = buffer.getInt();
+            Map<String, byte[]> entries = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                byte[] value = new byte[buffer.getInt()];
+                buffer.get(value);
+                entries.put(new String(key, StandardCharsets.UTF_8), value);
+            }
+            return new KafkaStoreSnapshot(offset, timestamp, entries);
+        } catch (RuntimeException e) {
+            // truncated or corrupted file
+            throw new IOException("Invalid KafkaStore snapshot: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("ns4kafka.store.kafka.snapshot")
+public class KafkaStoreSnapshotConfig {
+    private boolean enabled = false;
+    /**
+     * Local directory of the snapshot files, one per store topic
+     */
+    private String directory = "snapshots";
+    private Duration interval = Duration.ofMinutes(5);
+    /**
+     * Older snapshots are ignored: tombstones written after them may have been compacted away since.
+     * Must stay below the delete.retention.ms of the store topics.
+     */
+    private Duration maxAge = Duration.ofHours(12);
+}
@@ -1,11 +1,11 @@
 package com.michelin.ns4kafka.repositories.kafka;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 
 import com.michelin.ns4kafka.models.KafkaStream;
+import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.repositories.StreamRepository;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -25,10 +25,12 @@ import io.micronaut.context.annotation.Value;
         offsetStrategy = OffsetStrategy.DISABLED
 )
 public class KafkaStreamRepository extends KafkaStore<KafkaStream> implements StreamRepository {
+    private static final String CLUSTER_INDEX = "cluster";
 
     public KafkaStreamRepository(@Value("${ns4kafka.store.kafka.topics.prefix}.streams") String kafkaTopic,
                                  @KafkaClient("streams-producer") Producer<String, KafkaStream> kafkaProducer) {
         super(kafkaTopic, kafkaProducer);
+        addIndex(CLUSTER_INDEX, stream -> stream.getMetadata().getCluster());
     }
 
     @Override
@@ -36,12 +38,20 @@ public class KafkaStreamRepository extends KafkaStore<KafkaStream> implements St
         return stream.getMetadata().getCluster()+"/"+ stream.getMetadata().getName();
     }
 
+    @Override
+    KafkaStream deduplicate(KafkaStream stream) {
+        KafkaStoreInterner.internMetadata(stream.getMetadata());
+        return stream;
+    }
+
+    @Override
+    ObjectMeta getMetadata(KafkaStream stream) {
+        return stream.getMetadata();
+    }
+
     @Override
     public List<KafkaStream> findAllForCluster(String cluster) {
-        return getKafkaStore().values()
-                .stream()
-                .filter(stream -> stream.getMetadata().getCluster().equals(cluster))
-                .collect(Collectors.toList());
+        return findAllByIndex(CLUSTER_INDEX, cluster);
     }
 
     @Override
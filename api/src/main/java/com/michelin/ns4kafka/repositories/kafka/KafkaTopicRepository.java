@@ -1,5 +1,6 @@
 package com.michelin.ns4kafka.repositories.kafka;
 
+import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.models.Topic;
 import com.michelin.ns4kafka.repositories.TopicRepository;
 import io.micronaut.configuration.kafka.annotation.KafkaClient;
@@ -11,8 +12,11 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.Producer;
 
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
 
 @Singleton
 @KafkaListener(
@@ -21,10 +25,21 @@ import java.util.stream.Collectors;
         offsetStrategy = OffsetStrategy.DISABLED
 )
 public class KafkaTopicRepository extends KafkaStore<Topic> implements TopicRepository {
+    private static final String CLUSTER_INDEX = "cluster";
+    private static final String NORMALIZED_NAME_INDEX = "normalized-name";
 
     public KafkaTopicRepository(@Value("${ns4kafka.store.kafka.topics.prefix}.topics") String kafkaTopic,
                                       @KafkaClient("topics-producer") Producer<String, Topic> kafkaProducer) {
         super(kafkaTopic, kafkaProducer);
+        addIndex(CLUSTER_INDEX, topic -> topic.getMetadata().getCluster());
+        addIndex(NORMALIZED_NAME_INDEX, topic -> getNormalizedNameKey(topic.getMetadata().getCluster(), topic.getMetadata().getName()));
+    }
+
+    /**
+     * Kafka replaces the dots of the topic names by underscores in the metric names
+     */
+    private static String getNormalizedNameKey(String cluster, String name) {
+        return cluster + "/" + name.replace('.', '_');
     }
 
     @Override
@@ -32,11 +47,39 @@ public class KafkaTopicRepository extends KafkaStore<Topic> implements TopicRepo
         return topic.getMetadata().getCluster()+"/"+topic.getMetadata().getName();
     }
 
+    @Override
+    Topic deduplicate(Topic topic) {
+        KafkaStoreInterner.internMetadata(topic.getMetadata());
+        if (topic.getSpec() != null) {
+            topic.getSpec().setConfigs(KafkaStoreInterner.internMap(topic.getSpec().getConfigs()));
+        }
+        return topic;
+    }
+
+    @Override
+    ObjectMeta getMetadata(Topic topic) {
+        return topic.getMetadata();
+    }
+
     @Override
     public Topic create(Topic topic) {
         return this.produce(getMessageKey(topic), topic);
     }
 
+    @Override
+    public List<Topic> createAll(List<Topic> topics) {
+        Map<String, Topic> messages = new LinkedHashMap<>();
+        topics.forEach(topic -> messages.put(getMessageKey(topic), topic));
+        return new ArrayList<>(this.produceAll(messages).values());
+    }
+
+    @Override
+    public List<Topic> updateStatuses(List<Topic> topics) {
+        Map<String, Topic> messages = new LinkedHashMap<>();
+        topics.forEach(topic -> messages.put(getMessageKey(topic), topic));
+        return new ArrayList<>(this.produceAllIfUnchanged(messages).values());
+    }
+
     @Override
     public void delete(Topic topic) {
         this.produce(getMessageKey(topic),null);
@@ -57,10 +100,17 @@ public class KafkaTopicRepository extends KafkaStore<Topic> implements TopicRepo
 
     @Override
     public List<Topic> findAllForCluster(String cluster) {
-        return getKafkaStore().values()
-                .stream()
-                .filter(topic -> topic.getMetadata().getCluster().equals(cluster))
-                .collect(Collectors.toList());
+        return findAllByIndex(CLUSTER_INDEX, cluster);
+    }
+
+    @Override
+    public List<Topic> findAllCollidingWith(String cluster, String name) {
+        return findAllByIndex(NORMALIZED_NAME_INDEX, getNormalizedNameKey(cluster, name));
+    }
+
+    @Override
+    public Optional<Topic> findByName(String cluster, String name) {
+        return Optional.ofNullable(getKafkaStore().get(cluster + "/" + name));
     }
 
 }
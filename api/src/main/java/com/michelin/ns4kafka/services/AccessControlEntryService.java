@@ -3,22 +3,28 @@ package com.michelin.ns4kafka.services;
 import com.michelin.ns4kafka.models.AccessControlEntry;
 import com.michelin.ns4kafka.models.Namespace;
 import com.michelin.ns4kafka.repositories.AccessControlEntryRepository;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStoreEvent;
 import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.event.ApplicationEventListener;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Singleton
-public class AccessControlEntryService {
+public class AccessControlEntryService implements ApplicationEventListener<KafkaStoreEvent<?>> {
     @Inject
     AccessControlEntryRepository accessControlEntryRepository;
     @Inject
     ApplicationContext applicationContext;
 
+    /**
+     * OWNER ACLs by cluster and resource type, built on first use and kept up to date from the store updates
+     */
+    private final Map<String, Map<AccessControlEntry.ResourceType, AccessControlEntryTrie>> ownershipIndexes = new HashMap<>();
+
     public List<String> validate(AccessControlEntry accessControlEntry, Namespace namespace) {
         List<String> validationErrors = new ArrayList<>();
         // Which resource can be granted cross namespaces ? TOPIC
@@ -92,32 +98,69 @@ public class AccessControlEntryService {
         //   namespace2 OWNER:PREFIXED:project3_topic1_sub  OK 7
         //   namespace2 OWNER:PREFIXED:project2             OK 8
         //   namespace2 OWNER:LITERAL:proj                  OK 9
-        return findAllForCluster(namespace.getMetadata().getCluster())
+        AccessControlEntryTrie owners = getOwnershipIndex(namespace.getMetadata().getCluster(), accessControlEntry.getSpec().getResourceType());
+        // same resource or covered by an existing PREFIXED ACL (KO 1, 2, 3, 4)
+        Set<AccessControlEntry> overlaps = new LinkedHashSet<>(owners.findAllMatching(accessControlEntry.getSpec().getResource()));
+        // new PREFIXED ACL would cover existing ACLs (KO 5, 6)
+        if (accessControlEntry.getSpec().getResourcePatternType() == AccessControlEntry.ResourcePatternType.PREFIXED) {
+            overlaps.addAll(owners.findAllStartingWith(accessControlEntry.getSpec().getResource()));
+        }
+        return overlaps
                 .stream()
                 // don't include the ACL if it's itself (namespace+name)
                 .filter(ace -> !ace.getMetadata().getNamespace().equals(namespace.getMetadata().getName()) ||
                         !ace.getMetadata().getName().equals(accessControlEntry.getMetadata().getName()))
-                .filter(ace -> ace.getSpec().getPermission() == AccessControlEntry.Permission.OWNER)
-                .filter(ace -> ace.getSpec().getResourceType() == accessControlEntry.getSpec().getResourceType())
-                .filter(ace -> {
-                    // new PREFIXED ACL would cover existing ACLs
-                    boolean parentOverlap = false;
-                    if (accessControlEntry.getSpec().getResourcePatternType() == AccessControlEntry.ResourcePatternType.PREFIXED) {
-                        parentOverlap = ace.getSpec().getResource().startsWith(accessControlEntry.getSpec().getResource());
-                    }
-                    // new ACL would be covered by a PREFIXED existing ACLs
-                    boolean childOverlap = false;
-                    if (ace.getSpec().getResourcePatternType() == AccessControlEntry.ResourcePatternType.PREFIXED) {
-                        childOverlap = accessControlEntry.getSpec().getResource().startsWith(ace.getSpec().getResource());
-                    }
+                .map(ace -> String.format("AccessControlEntry overlaps with existing one: %s", ace))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the OWNER ACLs of a cluster for a resource type, loading the cluster index on first use
+     * @param cluster The cluster
+     * @param resourceType The resource type
+     * @return The prefix tree of the OWNER ACLs
+     */
+    private AccessControlEntryTrie getOwnershipIndex(String cluster, AccessControlEntry.ResourceType resourceType) {
+        synchronized (ownershipIndexes) {
+            return ownershipIndexes.computeIfAbsent(cluster, c -> {
+                        Map<AccessControlEntry.ResourceType, AccessControlEntryTrie> index = new EnumMap<>(AccessControlEntry.ResourceType.class);
+                        findAllForCluster(c)
+                                .stream()
+                                .filter(ace -> ace.getSpec().getPermission() == AccessControlEntry.Permission.OWNER)
+                                .forEach(ace -> index.computeIfAbsent(ace.getSpec().getResourceType(), t -> new AccessControlEntryTrie()).add(ace));
+                        return index;
+                    })
+                    .computeIfAbsent(resourceType, t -> new AccessControlEntryTrie());
+        }
+    }
 
-                    boolean same = accessControlEntry.getSpec().getResource().equals(ace.getSpec().getResource());
+    @Override
+    public boolean supports(KafkaStoreEvent<?> event) {
+        return event.isOf(AccessControlEntry.class);
+    }
 
-                    return same || parentOverlap || childOverlap;
+    @Override
+    public void onApplicationEvent(KafkaStoreEvent<?> event) {
+        synchronized (ownershipIndexes) {
+            if (event.isReset()) {
+                // reloaded from the store on first use
+                ownershipIndexes.clear();
+                return;
+            }
+            updateOwnershipIndex((AccessControlEntry) event.getOldValue(), AccessControlEntryTrie::remove);
+            updateOwnershipIndex((AccessControlEntry) event.getNewValue(), AccessControlEntryTrie::add);
+        }
+    }
 
-                })
-                .map(ace -> String.format("AccessControlEntry overlaps with existing one: %s", ace))
-                .collect(Collectors.toList());
+    private void updateOwnershipIndex(AccessControlEntry ace, BiConsumer<AccessControlEntryTrie, AccessControlEntry> update) {
+        if (ace == null || ace.getSpec().getPermission() != AccessControlEntry.Permission.OWNER) {
+            return;
+        }
+        // clusters not loaded yet will read the store on first use
+        Map<AccessControlEntry.ResourceType, AccessControlEntryTrie> index = ownershipIndexes.get(ace.getMetadata().getCluster());
+        if (index != null) {
+            update.accept(index.computeIfAbsent(ace.getSpec().getResourceType(), t -> new AccessControlEntryTrie()), ace);
+        }
     }
 
     public boolean isOwnerOfTopLevelAcl(AccessControlEntry accessControlEntry, Namespace namespace) {
@@ -166,27 +209,20 @@ public class AccessControlEntryService {
     }
 
     public List<AccessControlEntry> findAllGrantedToNamespace(Namespace namespace) {
-        return accessControlEntryRepository.findAll().stream()
-                .filter(accessControlEntry -> accessControlEntry.getSpec().getGrantedTo().equals(namespace.getMetadata().getName()))
-                .collect(Collectors.toList());
+        return accessControlEntryRepository.findAllGrantedTo(namespace.getMetadata().getName());
     }
 
     public List<AccessControlEntry> findAllForNamespace(Namespace namespace) {
-        return accessControlEntryRepository.findAll().stream()
-                .filter(accessControlEntry -> accessControlEntry.getMetadata().getNamespace().equals(namespace.getMetadata().getName()))
-                .collect(Collectors.toList());
+        return accessControlEntryRepository.findAllForNamespace(namespace.getMetadata().getName());
     }
 
     public List<AccessControlEntry> findAllForCluster(String cluster) {
-        return accessControlEntryRepository.findAll().stream()
-                .filter(accessControlEntry -> accessControlEntry.getMetadata().getCluster().equals(cluster))
-                .collect(Collectors.toList());
+        return accessControlEntryRepository.findAllForCluster(cluster);
     }
 
     public boolean isNamespaceOwnerOfResource(String namespace, AccessControlEntry.ResourceType resourceType, String resource) {
-        return accessControlEntryRepository.findAll()
+        return accessControlEntryRepository.findAllGrantedTo(namespace)
                 .stream()
-                .filter(accessControlEntry -> accessControlEntry.getSpec().getGrantedTo().equals(namespace))
                 .filter(accessControlEntry -> accessControlEntry.getSpec().getPermission() == AccessControlEntry.Permission.OWNER)
                 .filter(accessControlEntry -> accessControlEntry.getSpec().getResourceType() == resourceType)
                 .anyMatch(accessControlEntry -> {
@@ -0,0 +1,132 @@
+package com.michelin.ns4kafka.services;
+
+import com.michelin.ns4kafka.models.AccessControlEntry;
+
+import java.util.*;
+
+/**
+ * Prefix tree of AccessControlEntries indexed by resource name.
+ * PREFIXED entries hang off the node of their prefix, LITERAL entries off the node of their full name,
+ * so that matching a resource only walks the resource name once, whatever the number of entries.
+ * The tree doesn't check resource types: callers keep one tree per resource type.
+ */
+public class AccessControlEntryTrie {
+    private final Node root = new Node();
+
+    public AccessControlEntryTrie() {
+    }
+
+    public AccessControlEntryTrie(Collection<AccessControlEntry> accessControlEntries) {
+        accessControlEntries.forEach(this::add);
+    }
+
+    public synchronized void add(AccessControlEntry accessControlEntry) {
+        Node node = root;
+        for (char c : accessControlEntry.getSpec().getResource().toCharArray()) {
+            node = node.children.computeIfAbsent(c, k -> new Node());
+        }
+        node.entriesFor(accessControlEntry.getSpec().getResourcePatternType()).add(accessControlEntry);
+    }
+
+    public synchronized void remove(AccessControlEntry accessControlEntry) {
+        String resource = accessControlEntry.getSpec().getResource();
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        for (char c : resource.toCharArray()) {
+            path.push(node);
+            node = node.children.get(c);
+            if (node == null) {
+                return;
+            }
+        }
+        node.entriesFor(accessControlEntry.getSpec().getResourcePatternType()).remove(accessControlEntry);
+
+        // prune the branches left empty
+        for (int i = resource.length() - 1; i >= 0 && node.isEmpty(); i--) {
+            Node parent = path.pop();
+            parent.children.remove(resource.charAt(i));
+            node = parent;
+        }
+    }
+
+    /**
+     * List the entries matching a resource: PREFIXED entries whose prefix starts the resource, and LITERAL entries equal to it
+     * @param resource The resource name
+     * @return The matching entries
+     */
+    public synchronized List<AccessControlEntry> findAllMatching(String resource) {
+        Node node = root;
+        // an empty prefix matches every resource
+        List<AccessControlEntry> matching = new ArrayList<>(root.prefixed);
+        for (char c : resource.toCharArray()) {
+            node = node.children.get(c);
+            if (node == null) {
+                return matching;
+            }
+            matching.addAll(node.prefixed);
+        }
+        matching.addAll(node.literal);
+        return matching;
+    }
+
+    /**
+     * Check whether a resource is matched by any entry of the tree
+     * @param resource The resource name
+     * @return true if a PREFIXED entry starts the resource or a LITERAL entry is equal to it
+     */
+    public synchronized boolean matches(String resource) {
+        Node node = root;
+        if (!root.prefixed.isEmpty()) {
+            return true;
+        }
+        for (char c : resource.toCharArray()) {
+            node = node.children.get(c);
+            if (node == null) {
+                return false;
+            }
+            if (!node.prefixed.isEmpty()) {
+                return true;
+            }
+        }
+        return !node.literal.isEmpty();
+    }
+
+    /**
+     * List the entries, PREFIXED or LITERAL, whose resource starts with the given prefix
+     * @param prefix The resource prefix
+     * @return The entries under the prefix
+     */
+    public synchronized List<AccessControlEntry> findAllStartingWith(String prefix) {
+        List<AccessControlEntry> children = new ArrayList<>();
+        Node node = root;
+        for (char c : prefix.toCharArray()) {
+            node = node.children.get(c);
+            if (node == null) {
+                return children;
+            }
+        }
+        Deque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(node);
+        while (!toVisit.isEmpty()) {
+            Node current = toVisit.pop();
+            children.addAll(current.prefixed);
+            children.addAll(current.literal);
+            current.children.values().forEach(toVisit::push);
+        }
+        return children;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<AccessControlEntry> prefixed = new HashSet<>();
+        private final Set<AccessControlEntry> literal = new HashSet<>();
+
+        private Set<AccessControlEntry> entriesFor(AccessControlEntry.ResourcePatternType resourcePatternType) {
+            return resourcePatternType == AccessControlEntry.ResourcePatternType.PREFIXED ? prefixed : literal;
+        }
+
+        private boolean isEmpty() {
+            return children.isEmpty() && prefixed.isEmpty() && literal.isEmpty();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.michelin.ns4kafka.models.AccessControlEntry;
 import com.michelin.ns4kafka.models.Connector;
 import com.michelin.ns4kafka.models.Namespace;
 import com.michelin.ns4kafka.repositories.ConnectorRepository;
+import com.michelin.ns4kafka.services.connect.ConnectorPluginCache;
 import com.michelin.ns4kafka.services.connect.KafkaConnectClientProxy;
 import com.michelin.ns4kafka.services.connect.client.KafkaConnectClient;
 import com.michelin.ns4kafka.services.connect.client.entities.ConfigInfos;
@@ -12,9 +13,13 @@ import com.michelin.ns4kafka.services.connect.client.entities.ConnectorSpecs;
 import com.michelin.ns4kafka.services.connect.client.entities.ConnectorStateInfo;
 import com.michelin.ns4kafka.services.executors.ConnectorAsyncExecutor;
 import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.core.util.StringUtils;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.inject.qualifiers.Qualifiers;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
@@ -36,27 +41,25 @@ public class KafkaConnectService {
     @Inject
     ConnectorRepository connectorRepository;
     @Inject
+    ConnectorPluginCache connectorPluginCache;
+    @Inject
     ApplicationContext applicationContext;
 
+    /**
+     * Tasks of a connector restarted at the same time
+     */
+    @Value("${ns4kafka.connect.restart-parallelism:8}")
+    int restartParallelism = 8;
+
     public List<Connector> findAllForNamespace(Namespace namespace) {
-        List<AccessControlEntry> acls = accessControlEntryService.findAllGrantedToNamespace(namespace);
+        AccessControlEntryTrie ownedConnectors = new AccessControlEntryTrie(accessControlEntryService.findAllGrantedToNamespace(namespace)
+                .stream()
+                .filter(accessControlEntry -> accessControlEntry.getSpec().getPermission() == AccessControlEntry.Permission.OWNER)
+                .filter(accessControlEntry -> accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.CONNECT)
+                .collect(Collectors.toList()));
         return connectorRepository.findAllForCluster(namespace.getMetadata().getCluster())
                 .stream()
-                .filter(connector -> acls.stream().anyMatch(accessControlEntry -> {
-                    //need to check accessControlEntry.Permission, we want OWNER
-                    if (accessControlEntry.getSpec().getPermission() != AccessControlEntry.Permission.OWNER) {
-                        return false;
-                    }
-                    if (accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.CONNECT) {
-                        switch (accessControlEntry.getSpec().getResourcePatternType()) {
-                            case PREFIXED:
-                                return connector.getMetadata().getName().startsWith(accessControlEntry.getSpec().getResource());
-                            case LITERAL:
-                                return connector.getMetadata().getName().equals(accessControlEntry.getSpec().getResource());
-                        }
-                    }
-                    return false;
-                }))
+                .filter(connector -> ownedConnectors.matches(connector.getMetadata().getName()))
                 .collect(Collectors.toList());
     }
 
@@ -67,6 +70,25 @@ public class KafkaConnectService {
                 .findFirst();
     }
 
+    /**
+     * Add the status read from its Connect cluster by the last synchronization to a connector.
+     * The stored status is kept when the synchronization hasn't read it recently.
+     * @param namespace The namespace
+     * @param connector The connector
+     * @return A copy of the connector with its status
+     */
+    public Connector withStatus(Namespace namespace, Connector connector) {
+        ConnectorAsyncExecutor connectorAsyncExecutor = applicationContext.getBean(ConnectorAsyncExecutor.class,
+                Qualifiers.byName(namespace.getMetadata().getCluster()));
+        return connectorAsyncExecutor.findConnectorStatus(connector.getSpec().getConnectCluster(), connector.getMetadata().getName())
+                .map(status -> Connector.builder()
+                        .metadata(connector.getMetadata())
+                        .spec(connector.getSpec())
+                        .status(status)
+                        .build())
+                .orElse(connector);
+    }
+
     public List<String> validateLocally(Namespace namespace, Connector connector) {
 
         //check whether target Connect Cluster is allowed for this namespace
@@ -80,11 +102,9 @@ public class KafkaConnectService {
             return List.of("Invalid value for spec.config.'connector.class': Value must be non-null");
 
         // Connector type exists on this target connect cluster ?
-        Optional<String> connectorType = kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, namespace.getMetadata().getCluster(), connector.getSpec().getConnectCluster())
-                .stream()
-                .filter(connectPluginItem -> connectPluginItem.className().equals(connector.getSpec().getConfig().get("connector.class")))
-                .map(connectorPluginInfo -> connectorPluginInfo.type().toString().toLowerCase(Locale.ROOT))
-                .findFirst();
+        Optional<String> connectorType = connectorPluginCache.findPlugin(namespace.getMetadata().getCluster(), connector.getSpec().getConnectCluster(),
+                        connector.getSpec().getConfig().get("connector.class"))
+                .map(connectorPluginInfo -> connectorPluginInfo.type().toString().toLowerCase(Locale.ROOT));
         if(connectorType.isEmpty()){
             return List.of("Failed to find any class that implements Connector and which name matches " +
                     connector.getSpec().getConfig().get("connector.class"));
@@ -156,15 +176,17 @@ public class KafkaConnectService {
                 connector.getSpec().getConnectCluster(),
                 connector.getMetadata().getName()
         );
-        status.tasks().forEach( task -> {
-            kafkaConnectClient.restart(
-                    KafkaConnectClientProxy.PROXY_SECRET,
-                    namespace.getMetadata().getCluster(),
-                    connector.getSpec().getConnectCluster(),
-                    connector.getMetadata().getName(),
-                    task.id());
-                }
-        );
+        // the first failure cancels the pending restarts and is thrown
+        Flowable.fromIterable(status.tasks())
+                .flatMapCompletable(task -> Completable.fromAction(() -> kafkaConnectClient.restart(
+                                KafkaConnectClientProxy.PROXY_SECRET,
+                                namespace.getMetadata().getCluster(),
+                                connector.getSpec().getConnectCluster(),
+                                connector.getMetadata().getName(),
+                                task.id()))
+                        .subscribeOn(Schedulers.io()),
+                        false, restartParallelism)
+                .blockingAwait();
         log.info("Success restarting Connector [{}] on Namespace [{}] Connect [{}]",
                 connector.getMetadata().getName(),
                 namespace.getMetadata().getName(),
@@ -35,28 +35,15 @@ public class SchemaService {
      * @return A list of schemas
      */
     public List<Schema> findAllForNamespace(Namespace namespace) {
-        List<AccessControlEntry> acls = accessControlEntryService.findAllGrantedToNamespace(namespace).stream()
+        AccessControlEntryTrie ownedTopics = new AccessControlEntryTrie(accessControlEntryService.findAllGrantedToNamespace(namespace).stream()
                 .filter(acl -> acl.getSpec().getPermission() == AccessControlEntry.Permission.OWNER)
                 .filter(acl -> acl.getSpec().getResourceType() == AccessControlEntry.ResourceType.TOPIC)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
 
         return kafkaSchemaRegistryClient
                 .getSubjects(KafkaSchemaRegistryClientProxy.PROXY_SECRET, namespace.getMetadata().getCluster())
                 .stream()
-                .filter(subject -> {
-                    String underlyingTopicName = subject.replaceAll("(-key|-value)$","");
-
-                    return acls.stream().anyMatch(accessControlEntry -> {
-                        switch (accessControlEntry.getSpec().getResourcePatternType()) {
-                            case PREFIXED:
-                                return underlyingTopicName.startsWith(accessControlEntry.getSpec().getResource());
-                            case LITERAL:
-                                return underlyingTopicName.equals(accessControlEntry.getSpec().getResource());
-                        }
-
-                        return false;
-                    });
-                })
+                .filter(subject -> ownedTopics.matches(subject.replaceAll("(-key|-value)$","")))
                 .map(namespacedSubject -> Schema.builder()
                     .metadata(ObjectMeta.builder()
                             .cluster(namespace.getMetadata().getCluster())
@@ -33,24 +33,14 @@ public class TopicService {
     }
 
     public List<Topic> findAllForNamespace(Namespace namespace) {
-        List<AccessControlEntry> acls = accessControlEntryService.findAllGrantedToNamespace(namespace);
+        AccessControlEntryTrie ownedTopics = new AccessControlEntryTrie(accessControlEntryService.findAllGrantedToNamespace(namespace)
+                .stream()
+                .filter(accessControlEntry -> accessControlEntry.getSpec().getPermission() == AccessControlEntry.Permission.OWNER)
+                .filter(accessControlEntry -> accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.TOPIC)
+                .collect(Collectors.toList()));
         return topicRepository.findAllForCluster(namespace.getMetadata().getCluster())
                 .stream()
-                .filter(topic -> acls.stream().anyMatch(accessControlEntry -> {
-                    //need to check accessControlEntry.Permission, we want OWNER
-                    if (accessControlEntry.getSpec().getPermission() != AccessControlEntry.Permission.OWNER) {
-                        return false;
-                    }
-                    if (accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.TOPIC) {
-                        switch (accessControlEntry.getSpec().getResourcePatternType()) {
-                            case PREFIXED:
-                                return topic.getMetadata().getName().startsWith(accessControlEntry.getSpec().getResource());
-                            case LITERAL:
-                                return topic.getMetadata().getName().equals(accessControlEntry.getSpec().getResource());
-                        }
-                    }
-                    return false;
-                }))
+                .filter(topic -> ownedTopics.matches(topic.getMetadata().getName()))
                 .collect(Collectors.toList());
     }
 
@@ -58,23 +48,22 @@ public class TopicService {
         TopicAsyncExecutor topicAsyncExecutor = applicationContext.getBean(TopicAsyncExecutor.class,
                 Qualifiers.byName(namespace.getMetadata().getCluster()));
         try {
-            List<String> clusterTopics = topicAsyncExecutor.listBrokerTopicNames();
-            return clusterTopics.stream()
+            // the topics accepted but not created yet by the synchronization are only in the repository
+            Set<String> collidingTopics = new TreeSet<>(topicAsyncExecutor.findCollidingBrokerTopics(topic.getMetadata().getName()));
+            topicRepository.findAllCollidingWith(namespace.getMetadata().getCluster(), topic.getMetadata().getName())
+                    .forEach(collidingTopic -> collidingTopics.add(collidingTopic.getMetadata().getName()));
+            return collidingTopics
+                    .stream()
                     // existing topics with the exact same name (and not currently in ns4kafka) should not interfere
                     // this topic could be created on ns4kafka during "import" step
                     .filter(clusterTopic -> !topic.getMetadata().getName().equals(clusterTopic))
-                    .filter(clusterTopic -> hasCollision(clusterTopic, topic.getMetadata().getName()))
-                   .collect(Collectors.toList());
+                    .collect(Collectors.toList());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new InterruptedException(e.getMessage());
         }
     }
 
-    private boolean hasCollision(String topicA, String topicB){
-        return topicA.replace('.', '_').equals(topicB.replace('.', '_'));
-    }
-
     public boolean isNamespaceOwnerOfTopic(String namespace, String topic) {
         return accessControlEntryService.isNamespaceOwnerOfResource(namespace, AccessControlEntry.ResourceType.TOPIC, topic);
     }
@@ -83,6 +72,10 @@ public class TopicService {
         return topicRepository.create(topic);
     }
 
+    public List<Topic> createAll(List<Topic> topics) {
+        return topicRepository.createAll(topics);
+    }
+
     public void delete(Topic topic) throws InterruptedException, ExecutionException, TimeoutException {
         //TODO cleaner delete implementation, to be discussed
         TopicAsyncExecutor topicAsyncExecutor = applicationContext.getBean(TopicAsyncExecutor.class,
@@ -0,0 +1,208 @@
+package com.michelin.ns4kafka.services;
+
+import com.michelin.ns4kafka.controllers.ResourceVersionExpiredException;
+import com.michelin.ns4kafka.models.WatchEvent;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStore;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStoreEvent;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.Scheduler;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.schedulers.Schedulers;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Streams the updates applied to the stores to the watch endpoints.
+ * The offset of an update in its store topic is its resource version: the last updates of each store are retained
+ * so that a client can resume a watch from the last resource version it received.
+ */
+@Singleton
+public class WatchService implements ApplicationEventListener<KafkaStoreEvent<?>> {
+    @Inject
+    ApplicationContext applicationContext;
+
+    @Value("${ns4kafka.watch.history-size:1000}")
+    int historySize;
+    @Value("${ns4kafka.watch.buffer-size:1000}")
+    int bufferSize = 1000;
+    Scheduler scheduler = Schedulers.computation();
+
+    private final Map<Class<?>, Feed> feeds = new ConcurrentHashMap<>();
+
+    @Override
+    public void onApplicationEvent(KafkaStoreEvent<?> event) {
+        if (event.isReset()) {
+            Optional.ofNullable(feeds.get(event.getResetType())).ifPresent(feed -> feed.reset(event.getOffset()));
+            return;
+        }
+        Object value = event.getNewValue() != null ? event.getNewValue() : event.getOldValue();
+        if (value == null) {
+            return;
+        }
+        // the store offset is still the one preceding the event, nothing before it is missing from the feed
+        feeds.computeIfAbsent(value.getClass(), type -> new Feed(event.getOffset() - 1))
+                .publish(event, historySize);
+    }
+
+    /**
+     * Watch the changes of the resources of a type
+     * @param type The resource type
+     * @param resourceVersion The resource version to resume from, or null to start with the current resources
+     * @param currentResources The current resources, listed when starting without a resource version
+     * @param filter The resources to watch
+     * @param <T> The resource type
+     * @return An infinite stream of changes, ended by a ResourceVersionExpiredException if the client falls too far behind
+     * @exception ResourceVersionExpiredException if the changes following the resource version are not retained anymore
+     */
+    public <T> Flowable<WatchEvent<T>> watch(Class<T> type, Long resourceVersion, Supplier<List<T>> currentResources, Predicate<T> filter) {
+        Feed feed = feeds.computeIfAbsent(type, k -> new Feed(getStore(type).getOffset()));
+        if (resourceVersion != null) {
+            feed.checkResourceVersion(resourceVersion);
+        }
+
+        // the store reader only queues the updates, the client's filter runs on the scheduler
+        AtomicLong lastResourceVersion = new AtomicLong(resourceVersion == null ? -1 : resourceVersion);
+        return Flowable.<List<KafkaStoreEvent<?>>>create(emitter -> {
+                    Runnable subscribe = () -> feed.subscribe(emitter, resourceVersion,
+                            offset -> currentResources.get()
+                                    .stream()
+                                    .map(resource -> new KafkaStoreEvent<>(null, null, resource, offset))
+                                    .collect(Collectors.toList()));
+                    if (resourceVersion == null) {
+                        // an update applied to the store but not published yet would be listed, then sent again
+                        getStore(type).withUpdatesPaused(subscribe);
+                    } else {
+                        subscribe.run();
+                    }
+                }, BackpressureStrategy.MISSING)
+                .onBackpressureBuffer(bufferSize, null, BackpressureOverflowStrategy.ERROR)
+                .observeOn(scheduler)
+                .concatMapIterable(events -> events)
+                .doOnNext(event -> lastResourceVersion.set(event.getOffset()))
+                .map(event -> toWatchEvent(type, event, filter))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                // a client too slow to keep up lists the resources again
+                .onErrorResumeNext((Throwable error) -> Flowable.error(error instanceof MissingBackpressureException
+                        ? new ResourceVersionExpiredException(lastResourceVersion.get()) : error));
+    }
+
+    private <T> Optional<WatchEvent<T>> toWatchEvent(Class<T> type, KafkaStoreEvent<?> event, Predicate<T> filter) {
+        T oldValue = type.cast(event.getOldValue());
+        T newValue = type.cast(event.getNewValue());
+        boolean oldVisible = oldValue != null && filter.test(oldValue);
+        boolean newVisible = newValue != null && filter.test(newValue);
+
+        // a resource moving in or out of the watched ones is added or deleted
+        WatchEvent.WatchEventType eventType;
+        if (oldVisible && newVisible) {
+            eventType = WatchEvent.WatchEventType.MODIFIED;
+        } else if (newVisible) {
+            eventType = WatchEvent.WatchEventType.ADDED;
+        } else if (oldVisible) {
+            eventType = WatchEvent.WatchEventType.DELETED;
+        } else {
+            return Optional.empty();
+        }
+        return Optional.of(WatchEvent.<T>builder()
+                .type(eventType)
+                .resourceVersion(event.getOffset())
+                .object(newVisible ? newValue : oldValue)
+                .build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> KafkaStore<T> getStore(Class<T> type) {
+        return applicationContext.getBeansOfType(KafkaStore.class)
+                .stream()
+                .filter(store -> store.getValueType() == type)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No store for " + type.getSimpleName()));
+    }
+
+    /**
+     * The retained updates of a store, and the clients watching them
+     */
+    private static class Feed {
+        private final Deque<KafkaStoreEvent<?>> history = new ArrayDeque<>();
+        private final List<FlowableEmitter<List<KafkaStoreEvent<?>>>> subscribers = new CopyOnWriteArrayList<>();
+        /**
+         * The updates up to this offset are not retained
+         */
+        private long horizon;
+        private long lastOffset;
+
+        private Feed(long offset) {
+            this.horizon = offset;
+            this.lastOffset = offset;
+        }
+
+        private synchronized void publish(KafkaStoreEvent<?> event, int historySize) {
+            history.addLast(event);
+            lastOffset = event.getOffset();
+            while (history.size() > historySize) {
+                horizon = history.removeFirst().getOffset();
+            }
+            List<KafkaStoreEvent<?>> events = List.of(event);
+            subscribers.forEach(subscriber -> subscriber.onNext(events));
+        }
+
+        /**
+         * Forget the retained updates of a store replaced as a whole, the watching clients list the resources again
+         */
+        private synchronized void reset(long offset) {
+            history.clear();
+            subscribers.forEach(subscriber -> subscriber.onError(new ResourceVersionExpiredException(lastOffset)));
+            subscribers.clear();
+            horizon = offset;
+            lastOffset = offset;
+        }
+
+        private synchronized void checkResourceVersion(long resourceVersion) {
+            if (resourceVersion < horizon) {
+                throw new ResourceVersionExpiredException(resourceVersion);
+            }
+        }
+
+        /**
+         * Replay the updates following the resource version, or list the current resources without one,
+         * then follow the new updates. Holding the lock, no published update can slip in between,
+         * the store updates must be paused while listing the current resources.
+         */
+        private synchronized void subscribe(FlowableEmitter<List<KafkaStoreEvent<?>>> emitter, Long resourceVersion,
+                                            LongFunction<List<KafkaStoreEvent<?>>> currentResources) {
+            if (resourceVersion == null) {
+                emitter.onNext(currentResources.apply(lastOffset));
+            } else if (resourceVersion < horizon) {
+                // evicted since the watch was requested
+                emitter.onError(new ResourceVersionExpiredException(resourceVersion));
+                return;
+            } else {
+                emitter.onNext(history.stream()
+                        .filter(event -> event.getOffset() > resourceVersion)
+                        .collect(Collectors.toList()));
+            }
+            subscribers.add(emitter);
+            emitter.setCancellable(() -> subscribers.remove(emitter));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.michelin.ns4kafka.services.connect;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * A hash of the canonical form of a connector config: keys sorted, values trimmed and booleans lower cased,
+ * without the keys populated by Connect. Two configs Connect treats the same have the same fingerprint.
+ */
+public final class ConnectorConfigFingerprint {
+    /**
+     * The value Connect returns in place of the PASSWORD configs
+     */
+    public static final String MASKED_VALUE = "[hidden]";
+
+    private ConnectorConfigFingerprint() {
+    }
+
+    /**
+     * @param config The connector config
+     * @param ignoredKeys The keys left out, such as the name Connect adds to the config
+     * @param maskedKeys The keys whose value is compared as masked, because Connect doesn't return it
+     * @return The fingerprint
+     */
+    public static String of(Map<String, String> config, Collection<String> ignoredKeys, Set<String> maskedKeys) {
+        Map<String, String> canonical = new TreeMap<>();
+        config.forEach((key, value) -> {
+            if (!ignoredKeys.contains(key)) {
+                canonical.put(key, maskedKeys.contains(key) ? MASKED_VALUE : normalize(value));
+            }
+        });
+        // length prefixes keep "a=b,c" and "a=b" + ",c" apart
+        StringBuilder builder = new StringBuilder();
+        canonical.forEach((key, value) -> builder.append(key.length()).append(':').append(key)
+                .append(value.length()).append(':').append(value));
+        return sha256(builder.toString());
+    }
+
+    /**
+     * Find the keys Connect returned masked
+     * @param config The connector config returned by Connect
+     * @return The masked keys
+     */
+    public static Set<String> maskedKeys(Map<String, String> config) {
+        return config.entrySet()
+                .stream()
+                .filter(entry -> MASKED_VALUE.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String trimmed = value.trim();
+        if (trimmed.equalsIgnoreCase("true") || trimmed.equalsIgnoreCase("false")) {
+            return trimmed.toLowerCase();
+        }
+        return trimmed;
+    }
+
+    private static String sha256(String canonicalConfig) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonicalConfig.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hexString = new StringBuilder(2 * hash.length);
+            for (byte b : hash) {
+                hexString.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM implements SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
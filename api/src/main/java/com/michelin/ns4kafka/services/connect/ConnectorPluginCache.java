@@ -0,0 +1,122 @@
+package com.michelin.ns4kafka.services.connect;
+
+import com.michelin.ns4kafka.services.connect.client.KafkaConnectClient;
+import com.michelin.ns4kafka.services.connect.client.entities.ConnectorPluginInfo;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.client.exceptions.ReadTimeoutException;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The connector plugins installed on each Connect cluster, by class name.
+ * A cached catalogue is always served, it is reloaded in the background when older than its TTL
+ * or missing the class looked up. Only the first load of a Connect cluster is waited for, up to the load timeout.
+ */
+@Slf4j
+@Singleton
+public class ConnectorPluginCache {
+    /**
+     * A class missing from a catalogue loaded before this delay reloads it, for the plugins installed since
+     */
+    private static final Duration MISS_RELOAD_DELAY = Duration.ofSeconds(30);
+
+    @Inject
+    KafkaConnectClient kafkaConnectClient;
+
+    @Value("${ns4kafka.connect.plugin-cache-ttl:5m}")
+    Duration ttl = Duration.ofMinutes(5);
+    @Value("${ns4kafka.connect.plugin-cache-load-timeout:10s}")
+    Duration loadTimeout = Duration.ofSeconds(10);
+
+    private final Map<String, Catalogue> catalogues = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Catalogue>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Find a connector plugin installed on a Connect cluster
+     * @param cluster The Kafka cluster
+     * @param connectCluster The Connect cluster
+     * @param className The connector class
+     * @return The plugin
+     */
+    public Optional<ConnectorPluginInfo> findPlugin(String cluster, String connectCluster, String className) {
+        Catalogue catalogue = catalogues.get(cluster + "/" + connectCluster);
+        if (catalogue == null) {
+            catalogue = awaitFirstLoad(cluster, connectCluster);
+        } else if (catalogue.isOlderThan(ttl)
+                || (!catalogue.plugins.containsKey(className) && catalogue.isOlderThan(MISS_RELOAD_DELAY))) {
+            loadInBackground(cluster, connectCluster);
+        }
+        return Optional.ofNullable(catalogue.plugins.get(className));
+    }
+
+    private Catalogue awaitFirstLoad(String cluster, String connectCluster) {
+        try {
+            return loadInBackground(cluster, connectCluster).get(loadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ReadTimeoutException.TIMEOUT_EXCEPTION;
+        } catch (TimeoutException e) {
+            throw ReadTimeoutException.TIMEOUT_EXCEPTION;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        }
+    }
+
+    private Catalogue load(String cluster, String connectCluster) {
+        Map<String, ConnectorPluginInfo> plugins = kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, cluster, connectCluster)
+                .stream()
+                .collect(Collectors.toUnmodifiableMap(ConnectorPluginInfo::className, Function.identity(), (first, second) -> first));
+        Catalogue catalogue = new Catalogue(plugins, Instant.now());
+        catalogues.put(cluster + "/" + connectCluster, catalogue);
+        return catalogue;
+    }
+
+    /**
+     * Load the catalogue of a Connect cluster on another thread, unless a load is already in flight
+     * @return The load in flight
+     */
+    private CompletableFuture<Catalogue> loadInBackground(String cluster, String connectCluster) {
+        return loading.computeIfAbsent(cluster + "/" + connectCluster, key -> {
+            CompletableFuture<Catalogue> load = new CompletableFuture<>();
+            Single.fromCallable(() -> load(cluster, connectCluster))
+                    .subscribeOn(Schedulers.io())
+                    // runs once the load is registered, the map locks the key while computing it
+                    .doFinally(() -> loading.remove(key, load))
+                    .subscribe(catalogue -> {
+                        log.debug("Connector plugins loaded for Kafka cluster {} and Connect cluster {}", cluster, connectCluster);
+                        load.complete(catalogue);
+                    }, e -> {
+                        log.error("Error loading the connector plugins of Kafka cluster {} and Connect cluster {}, the previous ones are kept",
+                                cluster, connectCluster, e);
+                        load.completeExceptionally(e);
+                    });
+            return load;
+        });
+    }
+
+    @AllArgsConstructor
+    private static class Catalogue {
+        private final Map<String, ConnectorPluginInfo> plugins;
+        private final Instant loaded;
+
+        boolean isOlderThan(Duration duration) {
+            return Instant.now().isAfter(loaded.plus(duration));
+        }
+    }
+}
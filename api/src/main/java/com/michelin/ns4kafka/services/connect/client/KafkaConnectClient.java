@@ -7,6 +7,7 @@ import com.michelin.ns4kafka.services.connect.client.entities.*;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.annotation.*;
 import io.micronaut.http.client.annotation.Client;
+import io.reactivex.Flowable;
 
 import java.util.HashMap;
 import java.util.List;
@@ -37,6 +38,14 @@ public interface KafkaConnectClient {
             String connector,
             @Body ConnectorSpecs connectorSpec);
 
+    @Put("/connectors/{connector}/config")
+    Flowable<ConnectorInfo> createOrUpdateAsync(
+            @Header(value = KafkaConnectClientProxy.PROXY_HEADER_SECRET) String secret,
+            @Header(value = KafkaConnectClientProxy.PROXY_HEADER_KAFKA_CLUSTER) String cluster,
+            @Header(value = KafkaConnectClientProxy.PROXY_HEADER_CONNECT_CLUSTER) String connectCluster,
+            String connector,
+            @Body ConnectorSpecs connectorSpec);
+
     @Delete("/connectors/{connector}")
     HttpResponse delete(
             @Header(value = KafkaConnectClientProxy.PROXY_HEADER_SECRET) String secret,
@@ -4,24 +4,31 @@ import com.michelin.ns4kafka.models.AccessControlEntry;
 import com.michelin.ns4kafka.models.KafkaStream;
 import com.michelin.ns4kafka.models.Namespace;
 import com.michelin.ns4kafka.repositories.NamespaceRepository;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStoreEvent;
 import com.michelin.ns4kafka.repositories.kafka.KafkaStoreException;
 import com.michelin.ns4kafka.services.AccessControlEntryService;
 import com.michelin.ns4kafka.services.KafkaConnectService;
 import com.michelin.ns4kafka.services.StreamService;
 import io.micronaut.context.annotation.EachBean;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ApplicationEventListener;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.acl.AccessControlEntryFilter;
 import org.apache.kafka.common.acl.AclBinding;
 import org.apache.kafka.common.acl.AclBindingFilter;
 import org.apache.kafka.common.acl.AclOperation;
 import org.apache.kafka.common.acl.AclPermissionType;
 import org.apache.kafka.common.resource.PatternType;
 import org.apache.kafka.common.resource.ResourcePattern;
+import org.apache.kafka.common.resource.ResourcePatternFilter;
 import org.apache.kafka.common.resource.ResourceType;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -32,9 +39,22 @@ import java.util.stream.Stream;
 @Slf4j
 @EachBean(KafkaAsyncExecutorConfig.class)
 @Singleton
-public class AccessControlEntryAsyncExecutor {
+public class AccessControlEntryAsyncExecutor implements ApplicationEventListener<KafkaStoreEvent<?>> {
+
+    private static final Set<ResourceType> MANAGED_RESOURCE_TYPES = EnumSet.of(ResourceType.TOPIC, ResourceType.GROUP, ResourceType.TRANSACTIONAL_ID);
+    /**
+     * AclBindings are their own key, the broker ACLs are either desired or deleted
+     */
+    static final Reconciler<AclBinding, AclBinding, AclBinding> ACL_RECONCILER = new Reconciler<>(
+            Function.identity(),
+            Function.identity(),
+            (expected, actual) -> true);
 
     private KafkaAsyncExecutorConfig kafkaAsyncExecutorConfig;
+    /**
+     * The AclBindings of each namespace, until one of its namespace, ACE or stream changes
+     */
+    private final Map<String, List<AclBinding>> desiredACLs = new ConcurrentHashMap<>();
 
     @Inject
     NamespaceRepository namespaceRepository;
@@ -45,6 +65,9 @@ public class AccessControlEntryAsyncExecutor {
     @Inject
     KafkaConnectService kafkaConnectService;
 
+    @Value("${ns4kafka.reconciliation.acl-describe-parallelism:4}")
+    int describeParallelism;
+
     public AccessControlEntryAsyncExecutor(KafkaAsyncExecutorConfig kafkaAsyncExecutorConfig) {
         this.kafkaAsyncExecutorConfig = kafkaAsyncExecutorConfig;
     }
@@ -64,19 +87,21 @@ public class AccessControlEntryAsyncExecutor {
         log.debug("Starting ACL collection for cluster {}", kafkaAsyncExecutorConfig.getName());
         try {
             // List ACLs from broker
-            List<AclBinding> brokerACLs = collectBrokerACLs(true);
-            List<AclBinding> ns4kafkaACLs = collectNs4KafkaACLs();
-
-            List<AclBinding> toCreate = ns4kafkaACLs.stream()
-                    .filter(aclBinding -> !brokerACLs.contains(aclBinding))
-                    .collect(Collectors.toList());
-            List<AclBinding> toDelete = brokerACLs.stream()
-                    .filter(aclBinding -> !ns4kafkaACLs.contains(aclBinding))
+            Set<String> undescribedPrincipals = new HashSet<>();
+            List<AclBinding> brokerACLs = collectBrokerACLs(true, undescribedPrincipals);
+            // the ACLs of the users that could not be described are left as is until the next cycle
+            List<AclBinding> ns4kafkaACLs = collectNs4KafkaACLs()
+                    .stream()
+                    .filter(aclBinding -> !undescribedPrincipals.contains(aclBinding.entry().principal()))
                     .collect(Collectors.toList());
 
+            Reconciler.Diff<AclBinding, AclBinding, AclBinding> diff = ACL_RECONCILER.diff(ns4kafkaACLs, brokerACLs);
+            List<AclBinding> toCreate = diff.getToCreate();
+            List<AclBinding> toDelete = diff.getToDelete();
+
             if (log.isDebugEnabled()) {
                 brokerACLs.stream()
-                        .filter(aclBinding -> ns4kafkaACLs.contains(aclBinding))
+                        .filter(aclBinding -> diff.getDesired().containsKey(aclBinding))
                         .forEach(aclBinding -> log.debug("Found in both : " + aclBinding.toString()));
                 toCreate.forEach(aclBinding -> log.debug("to create : " + aclBinding.toString()));
                 toDelete.forEach(aclBinding -> log.debug("to delete : " + aclBinding.toString()));
@@ -104,35 +129,10 @@ public class AccessControlEntryAsyncExecutor {
         // TODO this returns only the default user with ACL "inherited" from the namespace
         //   at some point we want to manage multiple users within a namespace, each having their own ACLs.
 
-        List<Namespace> namespaces = namespaceRepository.findAllForCluster(kafkaAsyncExecutorConfig.getName());
-
-        // Converts Topic and Group ns4kafka ACL to Topic and Group Kafka AclBindings
-        Stream<AclBinding> aclBindingFromACLs = namespaces.stream()
-                .flatMap(namespace -> accessControlEntryService.findAllGrantedToNamespace(namespace)
-                        .stream()
-                        .filter(accessControlEntry -> accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.TOPIC ||
-                                accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.GROUP)
-                        //1-N ACE to List<AclBinding>
-                        .flatMap(accessControlEntry ->
-                                buildAclBindingsFromAccessControlEntry(accessControlEntry, namespace.getSpec().getKafkaUser()).stream()));
-        // Converts KafkaStream Resources to Topic (CREATE/DELETE) AclBindings
-        Stream<AclBinding> aclBindingFromKStream = namespaces.stream()
-                .flatMap(namespace -> streamService.findAllForNamespace(namespace)
-                        .stream()
-                        .flatMap(kafkaStream ->
-                                buildAclBindingsFromKafkaStream(kafkaStream, namespace.getSpec().getKafkaUser()).stream()));
-        // Converts Connect ACL  to Group AclBindings (connect-)
-        Stream<AclBinding> aclBindingFromConnect = namespaces.stream()
-                .flatMap(namespace -> accessControlEntryService.findAllGrantedToNamespace(namespace)
-                        .stream()
-                        .filter(accessControlEntry -> accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.CONNECT)
-                        .filter(accessControlEntry -> accessControlEntry.getSpec().getPermission() == AccessControlEntry.Permission.OWNER)
-                        //1-N ACE to List<AclBinding>
-                        .flatMap(accessControlEntry ->
-                                buildAclBindingsFromConnector(accessControlEntry, namespace.getSpec().getKafkaUser()).stream()));
-
-        List<AclBinding> ns4kafkaACLs = Stream.of(aclBindingFromACLs, aclBindingFromKStream, aclBindingFromConnect)
-                .flatMap(Function.identity())
+        List<AclBinding> ns4kafkaACLs = namespaceRepository.findAllForCluster(kafkaAsyncExecutorConfig.getName())
+                .stream()
+                .flatMap(namespace -> desiredACLs.computeIfAbsent(namespace.getMetadata().getName(),
+                        name -> buildNamespaceAclBindings(namespace)).stream())
                 .collect(Collectors.toList());
 
         if (log.isDebugEnabled()) {
@@ -142,21 +142,82 @@ public class AccessControlEntryAsyncExecutor {
         return ns4kafkaACLs;
     }
 
-    private List<AclBinding> collectBrokerACLs(boolean managedUsersOnly) throws ExecutionException, InterruptedException, TimeoutException {
+    private List<AclBinding> buildNamespaceAclBindings(Namespace namespace) {
+        List<AccessControlEntry> accessControlEntries = accessControlEntryService.findAllGrantedToNamespace(namespace);
+        // Converts Topic and Group ns4kafka ACL to Topic and Group Kafka AclBindings
+        Stream<AclBinding> aclBindingFromACLs = accessControlEntries.stream()
+                .filter(accessControlEntry -> accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.TOPIC ||
+                        accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.GROUP)
+                //1-N ACE to List<AclBinding>
+                .flatMap(accessControlEntry ->
+                        buildAclBindingsFromAccessControlEntry(accessControlEntry, namespace.getSpec().getKafkaUser()).stream());
+        // Converts KafkaStream Resources to Topic (CREATE/DELETE) AclBindings
+        Stream<AclBinding> aclBindingFromKStream = streamService.findAllForNamespace(namespace)
+                .stream()
+                .flatMap(kafkaStream ->
+                        buildAclBindingsFromKafkaStream(kafkaStream, namespace.getSpec().getKafkaUser()).stream());
+        // Converts Connect ACL  to Group AclBindings (connect-)
+        Stream<AclBinding> aclBindingFromConnect = accessControlEntries.stream()
+                .filter(accessControlEntry -> accessControlEntry.getSpec().getResourceType() == AccessControlEntry.ResourceType.CONNECT)
+                .filter(accessControlEntry -> accessControlEntry.getSpec().getPermission() == AccessControlEntry.Permission.OWNER)
+                //1-N ACE to List<AclBinding>
+                .flatMap(accessControlEntry ->
+                        buildAclBindingsFromConnector(accessControlEntry, namespace.getSpec().getKafkaUser()).stream());
+
+        return Stream.of(aclBindingFromACLs, aclBindingFromKStream, aclBindingFromConnect)
+                .flatMap(Function.identity())
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    @Override
+    public boolean supports(KafkaStoreEvent<?> event) {
+        return event.isOf(Namespace.class) || event.isOf(AccessControlEntry.class) || event.isOf(KafkaStream.class);
+    }
+
+    /**
+     * Forget the desired ACLs of the namespaces affected by a store update
+     */
+    @Override
+    public void onApplicationEvent(KafkaStoreEvent<?> event) {
+        if (event.isReset()) {
+            desiredACLs.clear();
+            return;
+        }
+        Stream.of(event.getOldValue(), event.getNewValue())
+                .filter(Objects::nonNull)
+                .map(value -> {
+                    if (value instanceof AccessControlEntry) {
+                        return ((AccessControlEntry) value).getSpec().getGrantedTo();
+                    }
+                    if (value instanceof KafkaStream) {
+                        return ((KafkaStream) value).getMetadata().getNamespace();
+                    }
+                    return ((Namespace) value).getMetadata().getName();
+                })
+                .filter(Objects::nonNull)
+                .forEach(desiredACLs::remove);
+    }
+
+    private List<AclBinding> collectBrokerACLs(boolean managedUsersOnly, Set<String> undescribedPrincipals) throws ExecutionException, InterruptedException, TimeoutException {
         //TODO soon : manage IDEMPOTENT_WRITE on CLUSTER 'kafka-cluster'
         //TODO eventually : manage DELEGATION_TOKEN and TRANSACTIONAL_ID
         //TODO eventually : manage host ?
         //TODO never ever : manage CREATE and DELETE Topics (managed by ns4kafka !)
 
-        List<ResourceType> validResourceTypes = List.of(ResourceType.TOPIC, ResourceType.GROUP, ResourceType.TRANSACTIONAL_ID);
+        if (managedUsersOnly && kafkaAsyncExecutorConfig.getAclDescribeScope() == KafkaAsyncExecutorConfig.AclDescribeScope.PRINCIPAL) {
+            // only the ACLs of the managed users are transferred from the broker
+            List<AclBinding> userACLs = filterManagedResourceTypes(describeAclsByPrincipal(collectManagedUsers(), undescribedPrincipals));
+            log.debug("ACLs found on Broker (managed scope) : {}", userACLs.size());
+            if (log.isDebugEnabled()) {
+                userACLs.forEach(aclBinding -> log.debug(aclBinding.toString()));
+            }
+            return userACLs;
+        }
 
         // keep only TOPIC and GROUP Resource Types
-        List<AclBinding> userACLs = getAdminClient()
+        List<AclBinding> userACLs = filterManagedResourceTypes(getAdminClient()
                 .describeAcls(AclBindingFilter.ANY)
-                .values().get(10, TimeUnit.SECONDS)
-                .stream()
-                .filter(aclBinding -> validResourceTypes.contains(aclBinding.pattern().resourceType()))
-                .collect(Collectors.toList());
+                .values().get(10, TimeUnit.SECONDS));
 
         log.debug("ACLs found on Broker (total) : {}", userACLs.size());
         if (log.isTraceEnabled()) {
@@ -169,16 +230,9 @@ public class AccessControlEntryAsyncExecutor {
         // as of now, this will prevent deletion of ACLs for users not in ns4kafka scope
         if (managedUsersOnly) {
             // we first collect the list of Users managed in ns4kafka
-            List<String> managedUsers = namespaceRepository.findAllForCluster(kafkaAsyncExecutorConfig.getName())
-                    .stream()
-                    //TODO managed user list should include not only "defaultKafkaUser" (MVP35)
-                    //1-N Namespace to KafkaUser
-                    .flatMap(namespace -> List.of("User:" + namespace.getSpec().getKafkaUser()).stream())
-                    .collect(Collectors.toList());
+            Set<String> managedUsers = collectManagedUsers();
             // And then filter out the AclBinding to retain only those matching.
-            userACLs = userACLs.stream()
-                    .filter(aclBinding -> managedUsers.contains(aclBinding.entry().principal()))
-                    .collect(Collectors.toList());
+            userACLs = filterManagedPrincipals(userACLs, managedUsers);
             log.debug("ACLs found on Broker (managed scope) : {}", userACLs.size());
         }
 
@@ -191,6 +245,60 @@ public class AccessControlEntryAsyncExecutor {
         return userACLs;
     }
 
+    private Set<String> collectManagedUsers() {
+        return namespaceRepository.findAllForCluster(kafkaAsyncExecutorConfig.getName())
+                .stream()
+                //TODO managed user list should include not only "defaultKafkaUser" (MVP35)
+                //1-N Namespace to KafkaUser
+                .flatMap(namespace -> List.of("User:" + namespace.getSpec().getKafkaUser()).stream())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Describe the ACLs of each principal, a few principals at a time
+     * @param principals The principals
+     * @param undescribedPrincipals Filled with the principals whose ACLs could not be described, they are missing from the result
+     * @return The ACLs of the principals
+     */
+    private List<AclBinding> describeAclsByPrincipal(Set<String> principals, Set<String> undescribedPrincipals) throws InterruptedException {
+        List<AclBinding> aclBindings = new ArrayList<>();
+        Deque<Map.Entry<String, KafkaFuture<Collection<AclBinding>>>> inFlight = new ArrayDeque<>();
+        for (String principal : principals) {
+            if (inFlight.size() >= describeParallelism) {
+                awaitAcls(inFlight.removeFirst(), aclBindings, undescribedPrincipals);
+            }
+            AclBindingFilter filter = new AclBindingFilter(ResourcePatternFilter.ANY,
+                    new AccessControlEntryFilter(principal, null, AclOperation.ANY, AclPermissionType.ANY));
+            inFlight.addLast(Map.entry(principal, getAdminClient().describeAcls(filter).values()));
+        }
+        while (!inFlight.isEmpty()) {
+            awaitAcls(inFlight.removeFirst(), aclBindings, undescribedPrincipals);
+        }
+        return aclBindings;
+    }
+
+    private void awaitAcls(Map.Entry<String, KafkaFuture<Collection<AclBinding>>> principalAcls, List<AclBinding> aclBindings,
+                           Set<String> undescribedPrincipals) throws InterruptedException {
+        try {
+            aclBindings.addAll(principalAcls.getValue().get(10, TimeUnit.SECONDS));
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Error while describing the ACLs of {} on {}, they are skipped", principalAcls.getKey(), kafkaAsyncExecutorConfig.getName(), e);
+            undescribedPrincipals.add(principalAcls.getKey());
+        }
+    }
+
+    static List<AclBinding> filterManagedResourceTypes(Collection<AclBinding> aclBindings) {
+        return aclBindings.stream()
+                .filter(aclBinding -> MANAGED_RESOURCE_TYPES.contains(aclBinding.pattern().resourceType()))
+                .collect(Collectors.toList());
+    }
+
+    static List<AclBinding> filterManagedPrincipals(Collection<AclBinding> aclBindings, Set<String> managedPrincipals) {
+        return aclBindings.stream()
+                .filter(aclBinding -> managedPrincipals.contains(aclBinding.entry().principal()))
+                .collect(Collectors.toList());
+    }
+
     private List<AclBinding> buildAclBindingsFromAccessControlEntry(AccessControlEntry accessControlEntry, String kafkaUser) {
         //convert pattern, convert resource type from NS4Kafka to org.apache.kafka.common types
         PatternType patternType = PatternType.fromString(accessControlEntry.getSpec().getResourcePatternType().toString());
@@ -0,0 +1,114 @@
+package com.michelin.ns4kafka.services.executors;
+
+import com.michelin.ns4kafka.models.Topic;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * The last known topics of a broker cluster, with their partitions and dynamic configs.
+ * Readers get an immutable snapshot, writers replace it.
+ */
+class BrokerTopicCache {
+    private volatile Map<String, Topic> topics = Map.of();
+    /**
+     * Topic names by normalized name, the topics sharing a normalized name collide in metric names
+     */
+    private volatile Map<String, Set<String>> namesByNormalizedName = Map.of();
+    /**
+     * When the whole cluster was last described, null until then
+     */
+    private volatile Instant refreshed;
+
+    Map<String, Topic> getTopics() {
+        return topics;
+    }
+
+    /**
+     * Find the topics whose name collides with a topic name, including the topic itself if it exists
+     * @param topicName The topic name
+     * @return The colliding topic names
+     */
+    Set<String> findCollidingTopicNames(String topicName) {
+        return namesByNormalizedName.getOrDefault(normalize(topicName), Set.of());
+    }
+
+    boolean isOlderThan(Duration duration) {
+        Instant last = refreshed;
+        return last == null || Instant.now().isAfter(last.plus(duration));
+    }
+
+    /**
+     * Replace the cached topics with a description of the whole cluster
+     * @param describedTopics The described topics
+     * @param listedTopicNames All the topics of the cluster, the ones that could not be described keep their cached value
+     */
+    synchronized void replace(Map<String, Topic> describedTopics, Collection<String> listedTopicNames) {
+        Map<String, Topic> updated = new HashMap<>(describedTopics);
+        listedTopicNames.forEach(name -> {
+            Topic cached = topics.get(name);
+            if (!updated.containsKey(name) && cached != null) {
+                updated.put(name, cached);
+            }
+        });
+        Map<String, Set<String>> updatedIndex = new HashMap<>();
+        updated.keySet().forEach(name -> addToIndex(updatedIndex, name));
+        update(updated, updatedIndex);
+        refreshed = Instant.now();
+    }
+
+    synchronized void putAll(Collection<Topic> describedTopics) {
+        if (describedTopics.isEmpty()) {
+            return;
+        }
+        Map<String, Topic> updated = new HashMap<>(topics);
+        Map<String, Set<String>> updatedIndex = new HashMap<>(namesByNormalizedName);
+        describedTopics.forEach(topic -> {
+            if (updated.put(topic.getMetadata().getName(), topic) == null) {
+                addToIndex(updatedIndex, topic.getMetadata().getName());
+            }
+        });
+        update(updated, updatedIndex);
+    }
+
+    synchronized void remove(String topicName) {
+        if (!topics.containsKey(topicName)) {
+            return;
+        }
+        Map<String, Topic> updated = new HashMap<>(topics);
+        updated.remove(topicName);
+        Map<String, Set<String>> updatedIndex = new HashMap<>(namesByNormalizedName);
+        Set<String> names = new HashSet<>(updatedIndex.get(normalize(topicName)));
+        names.remove(topicName);
+        if (names.isEmpty()) {
+            updatedIndex.remove(normalize(topicName));
+        } else {
+            updatedIndex.put(normalize(topicName), Set.copyOf(names));
+        }
+        update(updated, updatedIndex);
+    }
+
+    private void update(Map<String, Topic> updated, Map<String, Set<String>> updatedIndex) {
+        topics = Collections.unmodifiableMap(updated);
+        namesByNormalizedName = Collections.unmodifiableMap(updatedIndex);
+    }
+
+    /**
+     * Add a topic name to an index under construction, the index values are immutable
+     */
+    private static void addToIndex(Map<String, Set<String>> index, String topicName) {
+        index.merge(normalize(topicName), Set.of(topicName), (names, added) -> {
+            Set<String> merged = new HashSet<>(names);
+            merged.addAll(added);
+            return Set.copyOf(merged);
+        });
+    }
+
+    /**
+     * Kafka replaces the dots of the topic names by underscores in the metric names
+     */
+    static String normalize(String topicName) {
+        return topicName.replace('.', '_');
+    }
+}
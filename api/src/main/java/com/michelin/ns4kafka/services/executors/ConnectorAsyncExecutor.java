@@ -4,19 +4,28 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.michelin.ns4kafka.models.Connector;
 import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.repositories.ConnectorRepository;
+import com.michelin.ns4kafka.services.connect.ConnectorConfigFingerprint;
 import com.michelin.ns4kafka.services.connect.KafkaConnectClientProxy;
 import com.michelin.ns4kafka.services.connect.client.KafkaConnectClient;
 import com.michelin.ns4kafka.services.connect.client.entities.ConnectorSpecs;
+import com.michelin.ns4kafka.services.connect.client.entities.ConnectorStateInfo;
 import com.michelin.ns4kafka.services.connect.client.entities.ConnectorStatus;
 import io.micronaut.context.annotation.EachBean;
+import io.micronaut.context.annotation.Value;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.http.client.exceptions.ReadTimeoutException;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.util.List;
-import java.util.Map;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -30,6 +39,38 @@ public class ConnectorAsyncExecutor {
     @Inject
     KafkaConnectClient kafkaConnectClient;
 
+    @Value("${ns4kafka.reconciliation.connector-deploy-concurrency:4}")
+    int deployConcurrency;
+    @Value("${ns4kafka.reconciliation.connector-deploy-rate:5}")
+    double deployRate;
+    @Value("${ns4kafka.reconciliation.connector-deploy-burst:20}")
+    int deployBurst;
+    /**
+     * The config keys Connect adds to the connector configs, left out of the drift detection
+     */
+    @Value("${ns4kafka.reconciliation.connector-ignored-configs:name}")
+    List<String> ignoredConfigs = List.of("name");
+    /**
+     * The age over which the connector statuses read by the synchronization are not served anymore
+     */
+    @Value("${ns4kafka.reconciliation.connector-status-max-staleness:1m}")
+    Duration statusMaxStaleness = Duration.ofMinutes(1);
+
+    /**
+     * The deployment rate limit of each Connect cluster, shared by the cycles
+     */
+    private final Map<String, TokenBucket> deployTokenBuckets = new ConcurrentHashMap<>();
+    /**
+     * The fingerprint of the config last deployed for each connector, by Connect cluster and connector name,
+     * a change of the desired config shows up even when Connect hides the changed value
+     */
+    private final Map<String, String> deployedFingerprints = new ConcurrentHashMap<>();
+    private final ConnectorStatusCache connectorStatusCache = new ConnectorStatusCache();
+    private final Reconciler<String, Connector, Connector> connectorReconciler = new Reconciler<>(
+            connector -> connector.getMetadata().getName(),
+            connector -> connector.getMetadata().getName(),
+            this::connectorsAreSame);
+
     public ConnectorAsyncExecutor(KafkaAsyncExecutorConfig kafkaAsyncExecutorConfig) {
         this.kafkaAsyncExecutorConfig = kafkaAsyncExecutorConfig;
     }
@@ -41,11 +82,14 @@ public class ConnectorAsyncExecutor {
     }
 
     private void synchronizeConnectors() {
-        kafkaAsyncExecutorConfig.getConnects()
-                .forEach((s, connectConfig) -> synchronizeConnectCluster(s));
+        // Connect clusters are synchronized concurrently, a slow one doesn't delay the others
+        Flowable.fromIterable(kafkaAsyncExecutorConfig.getConnects().keySet())
+                .flatMapCompletable(connectCluster -> Completable.defer(() -> synchronizeConnectCluster(connectCluster))
+                        .subscribeOn(Schedulers.io()))
+                .blockingAwait();
     }
 
-    private void synchronizeConnectCluster(String connectCluster) {
+    private Completable synchronizeConnectCluster(String connectCluster) {
         log.debug("Starting Connector synchronization for Kafka cluster {} and Connect cluster {}",
                 kafkaAsyncExecutorConfig.getName(),
                 connectCluster);
@@ -56,21 +100,14 @@ public class ConnectorAsyncExecutor {
             List<Connector> ns4kafkaConnectors = collectNs4KafkaConnectors(connectCluster);
 
 
-            List<Connector> toCreate = ns4kafkaConnectors.stream()
-                    .filter(connector -> brokerConnectors.stream().noneMatch(connector1 -> connector1.getMetadata().getName().equals(connector.getMetadata().getName())))
-                    .collect(Collectors.toList());
-            List<Connector> toUpdate = ns4kafkaConnectors.stream()
-                    .filter(connector -> brokerConnectors.stream()
-                            .anyMatch(connector1 -> {
-                                if (connector1.getMetadata().getName().equals(connector.getMetadata().getName())) {
-                                    return !connectorsAreSame(connector, connector1);
-                                }
-                                return false;
-                            }))
-                    .collect(Collectors.toList());
-            List<Connector> toDelete = brokerConnectors.stream()
-                    .filter(connector -> ns4kafkaConnectors.stream().noneMatch(connector1 -> connector1.getMetadata().getName().equals(connector.getMetadata().getName())))
+            Reconciler.Diff<String, Connector, Connector> diff = connectorReconciler.diff(ns4kafkaConnectors, brokerConnectors);
+            List<Connector> toCreate = diff.getToCreate();
+            List<Connector> toUpdate = diff.getToUpdate()
+                    .stream()
+                    .map(Reconciler.Change::getDesired)
                     .collect(Collectors.toList());
+            List<Connector> toDelete = diff.getToDelete();
+            toDelete.forEach(connector -> deployedFingerprints.remove(getFingerprintKey(connectCluster, connector.getMetadata().getName())));
 
             if (log.isDebugEnabled()) {
                 toCreate.forEach(connector -> log.debug("to create : " + connector.getMetadata().getName()));
@@ -78,9 +115,9 @@ public class ConnectorAsyncExecutor {
                 log.debug("not in ns4kafka : " + toDelete.size());
             }
 
-            toCreate.forEach(this::deployConnector);
-            toUpdate.forEach(this::deployConnector);
-
+            List<Connector> toDeploy = new ArrayList<>(toCreate);
+            toDeploy.addAll(toUpdate);
+            return deployConnectors(connectCluster, toDeploy);
 
         } catch(HttpClientResponseException e) {
             log.error("Invalid Http response {} during Connectors synchronization for Kafka cluster {} and Connect cluster {}",
@@ -96,18 +133,81 @@ public class ConnectorAsyncExecutor {
                     kafkaAsyncExecutorConfig.getName(),
                     connectCluster, e);
         }
+        return Completable.complete();
+    }
+
+    /**
+     * Deploy connectors on a Connect cluster, a few at a time and no faster than its token bucket allows,
+     * so that a mass redeployment doesn't keep the Connect cluster rebalancing
+     */
+    private Completable deployConnectors(String connectCluster, List<Connector> connectors) {
+        TokenBucket tokenBucket = deployTokenBuckets.computeIfAbsent(connectCluster,
+                k -> new TokenBucket(deployBurst, deployRate));
+        return Flowable.fromIterable(connectors)
+                .flatMapCompletable(connector -> deployConnector(connector)
+                        .delaySubscription(tokenBucket.reserve(), TimeUnit.NANOSECONDS),
+                        false, deployConcurrency);
     }
 
     public List<Connector> collectBrokerConnectors(String connectCluster) {
-        List<Connector> connectorList = kafkaConnectClient.listAll(KafkaConnectClientProxy.PROXY_SECRET, kafkaAsyncExecutorConfig.getName(), connectCluster)
+        Map<String, ConnectorStatus> connectorStatuses = kafkaConnectClient.listAll(KafkaConnectClientProxy.PROXY_SECRET, kafkaAsyncExecutorConfig.getName(), connectCluster);
+        Instant refreshed = Instant.now();
+        List<Connector> connectorList = connectorStatuses
                 .values()
                 .stream()
                 .map(connectorStatus -> buildConnectorFromConnectorStatus(connectorStatus, connectCluster))
                 .collect(Collectors.toList());
         log.debug("Connectors found on Connect Cluster {} : {}", connectCluster, connectorList.size());
+
+        Map<String, Connector.ConnectorStatus> statuses = new HashMap<>();
+        connectorStatuses.values()
+                .stream()
+                .filter(connectorStatus -> connectorStatus.getStatus() != null)
+                .forEach(connectorStatus -> statuses.put(connectorStatus.getInfo().name(),
+                        buildStatusFromConnectorStateInfo(connectorStatus.getStatus(), refreshed)));
+        connectorStatusCache.replace(connectCluster, statuses, refreshed);
         return connectorList;
     }
 
+    /**
+     * Find the status of a connector read by the last synchronization, unless it's older than the freshness bound
+     * @param connectCluster The Connect cluster
+     * @param connector The connector name
+     * @return The status
+     */
+    public Optional<Connector.ConnectorStatus> findConnectorStatus(String connectCluster, String connector) {
+        return connectorStatusCache.find(connectCluster, connector, statusMaxStaleness);
+    }
+
+    private Connector.ConnectorStatus buildStatusFromConnectorStateInfo(ConnectorStateInfo stateInfo, Instant refreshed) {
+        List<Connector.TaskStatus> tasks = stateInfo.tasks() == null ? List.of() : stateInfo.tasks()
+                .stream()
+                .map(task -> Connector.TaskStatus.builder()
+                        .id(String.valueOf(task.id()))
+                        .state(parseState(task.state()))
+                        .trace(task.trace())
+                        .worker_id(task.workerId())
+                        .build())
+                .collect(Collectors.toList());
+        return Connector.ConnectorStatus.builder()
+                .state(stateInfo.connector() == null ? null : parseState(stateInfo.connector().state()))
+                .worker_id(stateInfo.connector() == null ? null : stateInfo.connector().workerId())
+                .tasks(tasks)
+                .lastUpdateTime(Date.from(refreshed))
+                .build();
+    }
+
+    /**
+     * Connect versions may report states unknown to ns4kafka, they are left empty
+     */
+    private static Connector.TaskState parseState(String state) {
+        try {
+            return state == null ? null : Connector.TaskState.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private Connector buildConnectorFromConnectorStatus(ConnectorStatus connectorStatus, String connectCluster) {
         return Connector.builder()
                 .metadata(ObjectMeta.builder()
@@ -130,36 +230,55 @@ public class ConnectorAsyncExecutor {
         return connectorList;
     }
 
+    /**
+     * Compare the canonical fingerprints of the configs, so that the values normalized or masked by Connect
+     * don't trigger a redeployment
+     */
     private boolean connectorsAreSame(Connector expected, Connector actual) {
-        Map<String, String> expectedMap = expected.getSpec().getConfig();
-        Map<String, String> actualMap = actual.getSpec().getConfig();
-        if (expectedMap.size() != actualMap.size()) {
+        String fingerprintKey = getFingerprintKey(expected.getSpec().getConnectCluster(), expected.getMetadata().getName());
+        String desiredFingerprint = fingerprint(expected, Set.of());
+        String deployedFingerprint = deployedFingerprints.get(fingerprintKey);
+        if (deployedFingerprint != null && !deployedFingerprint.equals(desiredFingerprint)) {
             return false;
         }
-        return expectedMap.entrySet().stream()
-                .allMatch(e -> (e.getValue() == null && actualMap.get(e.getKey()) == null)
-                        || e.getValue().equals(actualMap.get(e.getKey())));
-    }
 
-    private void deployConnector(Connector connector) {
-        try {
-            kafkaConnectClient.createOrUpdate(
-                    KafkaConnectClientProxy.PROXY_SECRET,
-                    kafkaAsyncExecutorConfig.getName(),
-                    connector.getSpec().getConnectCluster(),
-                    connector.getMetadata().getName(),
-                    ConnectorSpecs.builder()
-                            .config(connector.getSpec().getConfig())
-                            .build());
-            log.info("Success deploying Connector [{}] on Kafka [{}] Connect [{}]",
-                    connector.getMetadata().getName(),
-                    this.kafkaAsyncExecutorConfig.getName(),
-                    connector.getSpec().getConnectCluster());
-        } catch (Exception e) {
-            log.error(String.format("Error deploying Connector [%s] on Kafka [%s] Connect [%s]",
-                    connector.getMetadata().getName(),
-                    this.kafkaAsyncExecutorConfig.getName(),
-                    connector.getSpec().getConnectCluster()), e);
+        Set<String> maskedKeys = ConnectorConfigFingerprint.maskedKeys(actual.getSpec().getConfig());
+        if (!fingerprint(expected, maskedKeys).equals(fingerprint(actual, maskedKeys))) {
+            return false;
         }
+        // the connector was deployed before this instance started, its masked values are assumed up to date
+        deployedFingerprints.putIfAbsent(fingerprintKey, desiredFingerprint);
+        return true;
+    }
+
+    private static String getFingerprintKey(String connectCluster, String connectorName) {
+        return connectCluster + "/" + connectorName;
+    }
+
+    private String fingerprint(Connector connector, Set<String> maskedKeys) {
+        return ConnectorConfigFingerprint.of(connector.getSpec().getConfig(), ignoredConfigs, maskedKeys);
+    }
+
+    private Completable deployConnector(Connector connector) {
+        return kafkaConnectClient.createOrUpdateAsync(
+                        KafkaConnectClientProxy.PROXY_SECRET,
+                        kafkaAsyncExecutorConfig.getName(),
+                        connector.getSpec().getConnectCluster(),
+                        connector.getMetadata().getName(),
+                        ConnectorSpecs.builder()
+                                .config(connector.getSpec().getConfig())
+                                .build())
+                .ignoreElements()
+                .doOnComplete(() -> deployedFingerprints.put(getFingerprintKey(connector.getSpec().getConnectCluster(), connector.getMetadata().getName()),
+                        fingerprint(connector, Set.of())))
+                .doOnComplete(() -> log.info("Success deploying Connector [{}] on Kafka [{}] Connect [{}]",
+                        connector.getMetadata().getName(),
+                        this.kafkaAsyncExecutorConfig.getName(),
+                        connector.getSpec().getConnectCluster()))
+                .doOnError(e -> log.error(String.format("Error deploying Connector [%s] on Kafka [%s] Connect [%s]",
+                        connector.getMetadata().getName(),
+                        this.kafkaAsyncExecutorConfig.getName(),
+                        connector.getSpec().getConnectCluster()), e))
+                .onErrorComplete();
     }
 }
@@ -0,0 +1,49 @@
+package com.michelin.ns4kafka.services.executors;
+
+import com.michelin.ns4kafka.models.Connector;
+import lombok.AllArgsConstructor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The last known status of the connectors of each Connect cluster.
+ * Readers get an immutable snapshot, the synchronization replaces it every time it lists a Connect cluster.
+ */
+class ConnectorStatusCache {
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Replace the statuses of a Connect cluster
+     * @param connectCluster The Connect cluster
+     * @param statuses The status of each connector of the Connect cluster
+     * @param refreshed When the statuses were read
+     */
+    void replace(String connectCluster, Map<String, Connector.ConnectorStatus> statuses, Instant refreshed) {
+        snapshots.put(connectCluster, new Snapshot(Map.copyOf(statuses), refreshed));
+    }
+
+    /**
+     * Find the status of a connector, unless it was read too long ago
+     * @param connectCluster The Connect cluster
+     * @param connector The connector name
+     * @param maxStaleness The age over which a status is not served
+     * @return The status
+     */
+    Optional<Connector.ConnectorStatus> find(String connectCluster, String connector, Duration maxStaleness) {
+        Snapshot snapshot = snapshots.get(connectCluster);
+        if (snapshot == null || Instant.now().isAfter(snapshot.refreshed.plus(maxStaleness))) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshot.statuses.get(connector));
+    }
+
+    @AllArgsConstructor
+    private static class Snapshot {
+        private final Map<String, Connector.ConnectorStatus> statuses;
+        private final Instant refreshed;
+    }
+}
@@ -24,6 +24,10 @@ public class KafkaAsyncExecutorConfig {
     boolean manageConnectors;
     boolean readOnly = true;
     KafkaProvider provider;
+    /**
+     * Whether the ACL synchronization describes all the ACLs of the cluster, or only the ones of each managed user
+     */
+    AclDescribeScope aclDescribeScope = AclDescribeScope.CLUSTER;
     
     Properties config;
 
@@ -62,6 +66,11 @@ public class KafkaAsyncExecutorConfig {
         CONFLUENT_CLOUD
     }
 
+    public enum AclDescribeScope {
+        CLUSTER,
+        PRINCIPAL
+    }
+
     public Admin getAdminClient() {
 
         if(this.adminClient == null) {
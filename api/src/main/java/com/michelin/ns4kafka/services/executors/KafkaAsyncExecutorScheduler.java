@@ -1,30 +1,50 @@
 package com.michelin.ns4kafka.services.executors;
 
+import com.michelin.ns4kafka.models.Topic;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStoreEvent;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.inject.qualifiers.Qualifiers;
 import io.micronaut.runtime.event.ApplicationStartupEvent;
 import io.micronaut.runtime.event.annotation.EventListener;
 import io.micronaut.scheduling.annotation.Scheduled;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 
+/**
+ * Reconciles each managed cluster on its own worker of the "reconciliation" executor,
+ * so that a slow or failing cluster doesn't delay the others.
+ * Topics changed in ns4kafka are synchronized as soon as they are applied to the store, between the scheduled cycles.
+ */
 @Slf4j
 @Singleton
-public class KafkaAsyncExecutorScheduler {
+public class KafkaAsyncExecutorScheduler implements ApplicationEventListener<KafkaStoreEvent<?>> {
 
     @Inject
-    List<TopicAsyncExecutor> topicAsyncExecutors;
+    ApplicationContext applicationContext;
     @Inject
-    List<AccessControlEntryAsyncExecutor> accessControlEntryAsyncExecutors;
+    List<KafkaAsyncExecutorConfig> kafkaAsyncExecutorConfigs;
     @Inject
-    List<ConnectorAsyncExecutor> connectorAsyncExecutors;
-    @Inject
-    List<UserAsyncExecutor> userAsyncExecutors;
+    @Named("reconciliation")
+    ExecutorService reconciliationExecutor;
 
     private final AtomicBoolean ready = new AtomicBoolean(false);
+    /**
+     * Clusters whose reconciliation is running, a cluster is never reconciled twice at the same time
+     */
+    private final Map<String, AtomicBoolean> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Duration> cycleDurations = new ConcurrentHashMap<>();
 
     @EventListener
     public void onStartupEvent(ApplicationStartupEvent event) {
@@ -37,13 +57,105 @@ public class KafkaAsyncExecutorScheduler {
     void schedule(){
 
         if(ready.get()) {
-            //TODO sequential forEach with exception handling (to let next clusters sync)
-            topicAsyncExecutors.forEach(TopicAsyncExecutor::run);
-            accessControlEntryAsyncExecutors.forEach(AccessControlEntryAsyncExecutor::run);
-            connectorAsyncExecutors.forEach(ConnectorAsyncExecutor::run);
-            userAsyncExecutors.forEach(UserAsyncExecutor::run);
+            kafkaAsyncExecutorConfigs.forEach(config -> submit(config.getName()));
         }else {
             log.warn("Scheduled job did not start because micronaut is not ready yet");
         }
     }
+
+    @Override
+    public boolean supports(KafkaStoreEvent<?> event) {
+        return event.isOf(Topic.class);
+    }
+
+    @Override
+    public void onApplicationEvent(KafkaStoreEvent<?> event) {
+        if (event.isReset()) {
+            // the topics changed meanwhile are unknown, every topic is compared again
+            kafkaAsyncExecutorConfigs.forEach(config -> getExecutor(TopicAsyncExecutor.class, config.getName()).requestResync());
+            return;
+        }
+        Topic oldTopic = (Topic) event.getOldValue();
+        Topic newTopic = (Topic) event.getNewValue();
+        // topics are deleted from the broker by the API, and a status update leaves the topic equal
+        if (!ready.get() || newTopic == null || newTopic.equals(oldTopic)) {
+            return;
+        }
+        String cluster = newTopic.getMetadata().getCluster();
+        if (kafkaAsyncExecutorConfigs.stream().noneMatch(config -> config.getName().equals(cluster))) {
+            return;
+        }
+        getExecutor(TopicAsyncExecutor.class, cluster).markDirty(newTopic.getMetadata().getName());
+        submitDirtyTopics(cluster);
+    }
+
+    /**
+     * The duration of the last complete reconciliation of each cluster
+     * @return The durations by cluster name
+     */
+    public Map<String, Duration> getCycleDurations() {
+        return Map.copyOf(cycleDurations);
+    }
+
+    void submit(String cluster) {
+        submit(cluster, () -> reconcile(cluster), true);
+    }
+
+    void submitDirtyTopics(String cluster) {
+        submit(cluster, () -> runStep(cluster, "changed topics",
+                () -> getExecutor(TopicAsyncExecutor.class, cluster).synchronizeDirtyTopics()), false);
+    }
+
+    private void submit(String cluster, Runnable cycle, boolean fullCycle) {
+        AtomicBoolean running = inFlight.computeIfAbsent(cluster, k -> new AtomicBoolean(false));
+        if (!running.compareAndSet(false, true)) {
+            // topics changed meanwhile are synchronized once the running cycle ends
+            if (fullCycle) {
+                log.warn("Reconciliation of cluster {} skipped, the previous one is still running", cluster);
+            }
+            return;
+        }
+        try {
+            reconciliationExecutor.execute(() -> {
+                try {
+                    cycle.run();
+                } finally {
+                    running.set(false);
+                }
+                if (getExecutor(TopicAsyncExecutor.class, cluster).hasDirtyTopics()) {
+                    submitDirtyTopics(cluster);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            log.error("Reconciliation of cluster {} rejected", cluster, e);
+        }
+    }
+
+    private void reconcile(String cluster) {
+        long start = System.nanoTime();
+        runStep(cluster, "topics", () -> getExecutor(TopicAsyncExecutor.class, cluster).run());
+        runStep(cluster, "ACLs", () -> getExecutor(AccessControlEntryAsyncExecutor.class, cluster).run());
+        runStep(cluster, "connectors", () -> getExecutor(ConnectorAsyncExecutor.class, cluster).run());
+        runStep(cluster, "users", () -> getExecutor(UserAsyncExecutor.class, cluster).run());
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        cycleDurations.put(cluster, duration);
+        log.debug("Reconciliation of cluster {} took {} ms", cluster, duration.toMillis());
+    }
+
+    /**
+     * Run one step of a cluster reconciliation, a failing step doesn't prevent the next ones
+     */
+    private void runStep(String cluster, String step, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Exception e) {
+            log.error("Error while reconciling {} of cluster {}", step, cluster, e);
+        }
+    }
+
+    private <T> T getExecutor(Class<T> executorType, String cluster) {
+        return applicationContext.getBean(executorType, Qualifiers.byName(cluster));
+    }
 }
@@ -0,0 +1,86 @@
+package com.michelin.ns4kafka.services.executors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Compares the resources declared in ns4kafka to the ones found on a cluster, matching them by key.
+ * Both sides are indexed once, so a diff is linear in the number of resources.
+ * @param <K> The key matching a desired resource to an actual one
+ * @param <D> The desired resource type
+ * @param <A> The actual resource type
+ */
+@AllArgsConstructor
+public class Reconciler<K, D, A> {
+    private final Function<D, K> desiredKey;
+    private final Function<A, K> actualKey;
+    /**
+     * Whether an actual resource already matches the desired one
+     */
+    private final BiPredicate<D, A> inSync;
+
+    /**
+     * Compute the changes bringing the actual resources to the desired ones
+     * @param desired The resources declared in ns4kafka
+     * @param actual The resources found on the cluster
+     * @return The diff
+     */
+    public Diff<K, D, A> diff(Collection<D> desired, Collection<A> actual) {
+        Map<K, A> actualByKey = index(actual, actualKey);
+        Map<K, D> desiredByKey = index(desired, desiredKey);
+
+        List<D> toCreate = new ArrayList<>();
+        List<Change<D, A>> toUpdate = new ArrayList<>();
+        desiredByKey.forEach((key, desiredResource) -> {
+            A actualResource = actualByKey.get(key);
+            if (actualResource == null) {
+                toCreate.add(desiredResource);
+            } else if (!inSync.test(desiredResource, actualResource)) {
+                toUpdate.add(new Change<>(desiredResource, actualResource));
+            }
+        });
+
+        List<A> toDelete = new ArrayList<>();
+        actualByKey.forEach((key, actualResource) -> {
+            if (!desiredByKey.containsKey(key)) {
+                toDelete.add(actualResource);
+            }
+        });
+        return new Diff<>(desiredByKey, toCreate, toUpdate, toDelete);
+    }
+
+    /**
+     * Index resources by key, the last one wins on duplicate keys
+     */
+    public static <K, T> Map<K, T> index(Collection<T> resources, Function<T, K> key) {
+        Map<K, T> resourcesByKey = new LinkedHashMap<>((int) (resources.size() / 0.75f) + 1);
+        resources.forEach(resource -> resourcesByKey.put(key.apply(resource), resource));
+        return resourcesByKey;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Diff<K, D, A> {
+        /**
+         * All the desired resources by key, to find the one matching an AdminClient or REST result
+         */
+        private final Map<K, D> desired;
+        private final List<D> toCreate;
+        private final List<Change<D, A>> toUpdate;
+        /**
+         * The actual resources not declared in ns4kafka
+         */
+        private final List<A> toDelete;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Change<D, A> {
+        private final D desired;
+        private final A actual;
+    }
+}
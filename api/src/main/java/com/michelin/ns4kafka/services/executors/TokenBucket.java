@@ -0,0 +1,43 @@
+package com.michelin.ns4kafka.services.executors;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Spreads actions over time: up to capacity actions at once, then ratePerSecond actions per second.
+ * An action takes a token, or reserves the next one and waits for it.
+ */
+class TokenBucket {
+    private final double capacity;
+    private final double nanosPerToken;
+    private final LongSupplier nanoClock;
+    /**
+     * Negative when tokens are reserved in advance
+     */
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(int capacity, double ratePerSecond) {
+        this(capacity, ratePerSecond, System::nanoTime);
+    }
+
+    TokenBucket(int capacity, double ratePerSecond, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    /**
+     * Take a token
+     * @return The delay in nanoseconds before the action can run, 0 if a token was available
+     */
+    synchronized long reserve() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+        tokens--;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * nanosPerToken);
+    }
+}
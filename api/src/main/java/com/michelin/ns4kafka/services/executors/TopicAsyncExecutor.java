@@ -1,21 +1,29 @@
 package com.michelin.ns4kafka.services.executors;
 
+import com.michelin.ns4kafka.controllers.BrokerTopicsNotLoadedException;
 import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.models.Topic;
 import com.michelin.ns4kafka.repositories.TopicRepository;
 import com.michelin.ns4kafka.repositories.kafka.KafkaStoreException;
 import io.micronaut.context.annotation.EachBean;
+import io.micronaut.context.annotation.Value;
+import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.*;
+import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigResource;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.net.MalformedURLException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -31,6 +39,36 @@ public class TopicAsyncExecutor {
     @Inject
     TopicRepository topicRepository;
 
+    @Value("${ns4kafka.reconciliation.topic-resync-interval:10m}")
+    Duration resyncInterval;
+    @Value("${ns4kafka.reconciliation.topic-describe-chunk-size:500}")
+    int describeChunkSize;
+    @Value("${ns4kafka.reconciliation.topic-describe-parallelism:4}")
+    int describeParallelism;
+    @Value("${ns4kafka.reconciliation.broker-cache-refresh-interval:1m}")
+    Duration brokerCacheRefreshInterval;
+    @Value("${ns4kafka.reconciliation.broker-cache-max-staleness:5m}")
+    Duration brokerCacheMaxStaleness;
+    @Value("${ns4kafka.reconciliation.broker-cache-load-timeout:10s}")
+    Duration brokerCacheLoadTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Topics changed in ns4kafka and not synchronized yet
+     */
+    private final Set<String> dirtyTopics = ConcurrentHashMap.newKeySet();
+    private final Set<String> failedTopics = ConcurrentHashMap.newKeySet();
+    private volatile Instant lastResync;
+    private final Reconciler<String, Topic, Topic> topicReconciler = new Reconciler<>(
+            topic -> topic.getMetadata().getName(),
+            topic -> topic.getMetadata().getName(),
+            (expected, actual) -> computeConfigChanges(expected, actual).isEmpty());
+    private final BrokerTopicCache brokerTopicCache = new BrokerTopicCache();
+    private final Object refreshLock = new Object();
+    /**
+     * The background refresh of the broker topics in flight, null if none. Guarded by refreshLock.
+     */
+    private CompletableFuture<Void> pendingRefresh;
+
 
     public TopicAsyncExecutor(KafkaAsyncExecutorConfig kafkaAsyncExecutorConfig) throws MalformedURLException {
         this.kafkaAsyncExecutorConfig = kafkaAsyncExecutorConfig;
@@ -46,72 +84,188 @@ public class TopicAsyncExecutor {
 
         // execute topic changes
         if(this.kafkaAsyncExecutorConfig.isManageTopics()) {
-            synchronizeTopics();
+            // retry the topics that failed to synchronize since the last cycle
+            dirtyTopics.addAll(failedTopics);
+            failedTopics.clear();
+            if (lastResync == null || Instant.now().isAfter(lastResync.plus(resyncInterval))) {
+                synchronizeTopics();
+            } else {
+                synchronizeDirtyTopics();
+            }
+        }
+
+        // keep the broker topics served to the API fresh, off the request threads, whether the topics are managed or not
+        if (brokerTopicCache.isOlderThan(brokerCacheRefreshInterval)) {
+            try {
+                refreshBrokerTopics();
+            } catch (ExecutionException | TimeoutException | CancellationException e) {
+                log.error("Error while refreshing the broker topics of cluster {}", kafkaAsyncExecutorConfig.getName(), e);
+            } catch (InterruptedException e) {
+                log.error("Error", e);
+                Thread.currentThread().interrupt();
+            }
         }
     }
+
+    /**
+     * Mark a topic changed in ns4kafka, to be synchronized by the next call to synchronizeDirtyTopics
+     * @param topic The topic name
+     */
+    public void markDirty(String topic) {
+        dirtyTopics.add(topic);
+    }
+
+    /**
+     * Compare all the topics in the next cycle, instead of the changed ones only
+     */
+    public void requestResync() {
+        lastResync = null;
+    }
+
+    public boolean hasDirtyTopics() {
+        return !dirtyTopics.isEmpty();
+    }
+
     /**** TOPICS MANAGEMENT ***/
+    /**
+     * Compare all the broker topics to all the ns4kafka topics of the cluster, to catch any drift
+     */
     public void synchronizeTopics(){
         log.debug("Starting topic collection for cluster {}",kafkaAsyncExecutorConfig.getName());
+        // every topic is compared, including the ones changed until now
+        dirtyTopics.clear();
+        Instant start = Instant.now();
         try {
             // List topics from broker
-            Map<String, Topic> brokerTopicList = collectBrokerTopics();
-            // List topics from ns4kafka Repository
-            List<Topic> ns4kafkaTopicList = topicRepository.findAllForCluster(kafkaAsyncExecutorConfig.getName());
-
-            // Compute toCreate, toDelete, and toUpdate lists
-            List<Topic> toCreate = ns4kafkaTopicList.stream()
-                    .filter(topic -> !brokerTopicList.containsKey(topic.getMetadata().getName()))
-                    .collect(Collectors.toList());
-
-            List<Topic> toDelete = brokerTopicList.values()
+            Set<String> undescribedTopicNames = new HashSet<>();
+            List<String> brokerTopicNames = fetchBrokerTopicNames();
+            Map<String, Topic> brokerTopicList = collectBrokerTopicsFromNames(brokerTopicNames, undescribedTopicNames);
+            brokerTopicCache.replace(brokerTopicList, brokerTopicNames);
+            // List topics from ns4kafka Repository, except the ones that could not be described
+            List<Topic> ns4kafkaTopicList = topicRepository.findAllForCluster(kafkaAsyncExecutorConfig.getName())
                     .stream()
-                    .filter(topic -> ns4kafkaTopicList.stream().noneMatch(topic1 -> topic1.getMetadata().getName().equals(topic.getMetadata().getName())))
+                    .filter(topic -> !undescribedTopicNames.contains(topic.getMetadata().getName()))
                     .collect(Collectors.toList());
+            failedTopics.addAll(undescribedTopicNames);
+
+            synchronizeTopics(brokerTopicList, ns4kafkaTopicList);
+            lastResync = start;
+        } catch (ExecutionException | TimeoutException | CancellationException | KafkaStoreException e) {
+            log.error("Error", e);
+        } catch (InterruptedException e) {
+            log.error("Error", e);
+            Thread.currentThread().interrupt();
+        }
 
-            List<Topic> toCheckConf = ns4kafkaTopicList.stream()
-                    .filter(topic -> brokerTopicList.containsKey(topic.getMetadata().getName()))
+    }
+
+    /**
+     * Compare only the topics changed in ns4kafka since the last synchronization
+     */
+    public void synchronizeDirtyTopics() {
+        if (!this.kafkaAsyncExecutorConfig.isManageTopics()) {
+            dirtyTopics.clear();
+            return;
+        }
+        List<String> topicNames = new ArrayList<>(dirtyTopics);
+        dirtyTopics.removeAll(topicNames);
+        if (topicNames.isEmpty()) {
+            return;
+        }
+        log.debug("Starting synchronization of {} changed topics for cluster {}", topicNames.size(), kafkaAsyncExecutorConfig.getName());
+        try {
+            Set<String> brokerTopicNames = new HashSet<>(fetchBrokerTopicNames());
+            List<String> existingTopicNames = topicNames.stream()
+                    .filter(brokerTopicNames::contains)
                     .collect(Collectors.toList());
-            Map<ConfigResource, Collection<AlterConfigOp>> toUpdate = toCheckConf.stream()
-                    .map(topic -> {
-                        Map<String,String> actualConf = brokerTopicList.get(topic.getMetadata().getName()).getSpec().getConfigs();
-                        Map<String,String> expectedConf = topic.getSpec().getConfigs() == null ? Map.of() : topic.getSpec().getConfigs();
-                        Collection<AlterConfigOp> topicConfigChanges = computeConfigChanges(expectedConf,actualConf);
-                        if(topicConfigChanges.size()>0){
-                            ConfigResource cr = new ConfigResource(ConfigResource.Type.TOPIC, topic.getMetadata().getName());
-                            return Map.entry(cr,topicConfigChanges);
-                        }
-                        return null;
-                    })
-                    .filter(Objects::nonNull) //TODO can we avoid this filter ?
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-            if(log.isDebugEnabled()){
-                log.debug("Topics to create : "+ toCreate.stream().map(t -> t.getMetadata().getName()).collect(Collectors.joining(", ")));
-                //TODO reenable
-                // LOG.debug("Topics to delete : "+String.join(", ", toDelete.stream().map(t -> t.getMetadata().getName()).collect(Collectors.toList())));
-                log.debug("Topics to delete : "+toDelete.size());
-                log.debug("Topic configs to update : "+toUpdate.size());
-                for (Map.Entry<ConfigResource,Collection<AlterConfigOp>> e : toUpdate.entrySet()) {
-                    for (AlterConfigOp op : e.getValue()) {
-                        log.debug(e.getKey().name()+" "+op.opType().toString()+" " +op.configEntry().name()+"("+op.configEntry().value()+")");
-                    }
-                }
-            }
-            //creating topics
-            createTopics(toCreate);
-            //delete
-            deleteTopics(toDelete);
-            //alter
-            alterTopics(toUpdate, toCheckConf);
+            Set<String> undescribedTopicNames = new HashSet<>();
+            Map<String, Topic> brokerTopicList = collectBrokerTopicsFromNames(existingTopicNames, undescribedTopicNames);
+            brokerTopicCache.putAll(brokerTopicList.values());
+            List<Topic> ns4kafkaTopicList = topicNames.stream()
+                    .filter(topicName -> !undescribedTopicNames.contains(topicName))
+                    .map(topicName -> topicRepository.findByName(kafkaAsyncExecutorConfig.getName(), topicName))
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toList());
+
+            failedTopics.addAll(undescribedTopicNames);
 
+            synchronizeTopics(brokerTopicList, ns4kafkaTopicList);
         } catch (ExecutionException | TimeoutException | CancellationException | KafkaStoreException e) {
             log.error("Error", e);
+            failedTopics.addAll(topicNames);
         } catch (InterruptedException e) {
             log.error("Error", e);
+            failedTopics.addAll(topicNames);
             Thread.currentThread().interrupt();
         }
+    }
 
+    private void synchronizeTopics(Map<String, Topic> brokerTopicList, List<Topic> ns4kafkaTopicList) {
+        // Compute toCreate, toDelete, and toUpdate lists
+        Reconciler.Diff<String, Topic, Topic> diff = topicReconciler.diff(ns4kafkaTopicList, brokerTopicList.values());
+        List<Topic> toCreate = diff.getToCreate();
+        List<Topic> toDelete = diff.getToDelete();
+        Map<ConfigResource, Collection<AlterConfigOp>> toUpdate = diff.getToUpdate()
+                .stream()
+                .collect(Collectors.toMap(
+                        change -> new ConfigResource(ConfigResource.Type.TOPIC, change.getDesired().getMetadata().getName()),
+                        change -> computeConfigChanges(change.getDesired(), change.getActual())));
+
+        if(log.isDebugEnabled()){
+            log.debug("Topics to create : "+ toCreate.stream().map(t -> t.getMetadata().getName()).collect(Collectors.joining(", ")));
+            //TODO reenable
+            // LOG.debug("Topics to delete : "+String.join(", ", toDelete.stream().map(t -> t.getMetadata().getName()).collect(Collectors.toList())));
+            log.debug("Topics to delete : "+toDelete.size());
+            log.debug("Topic configs to update : "+toUpdate.size());
+            for (Map.Entry<ConfigResource,Collection<AlterConfigOp>> e : toUpdate.entrySet()) {
+                for (AlterConfigOp op : e.getValue()) {
+                    log.debug(e.getKey().name()+" "+op.opType().toString()+" " +op.configEntry().name()+"("+op.configEntry().value()+")");
+                }
+            }
+        }
+        // statuses of the created and altered topics, written back to the store at once
+        // unless they changed meanwhile
+        List<Topic> statusUpdates = new ArrayList<>(toCreate.size() + toUpdate.size());
+        //creating topics
+        createTopics(toCreate, statusUpdates);
+        //delete
+        deleteTopics(toDelete);
+        //alter
+        alterTopics(toUpdate, diff.getDesired(), statusUpdates);
+
+        // the cached broker topics reflect the changes applied
+        brokerTopicCache.putAll(statusUpdates.stream()
+                .filter(topic -> topic.getStatus().getPhase() == Topic.TopicPhase.Success)
+                .map(topic -> toBrokerTopic(topic, brokerTopicList.get(topic.getMetadata().getName())))
+                .collect(Collectors.toList()));
+
+        if (!statusUpdates.isEmpty()) {
+            // a topic applied again since it was read keeps its new spec, it is synchronized on its own
+            topicRepository.updateStatuses(statusUpdates);
+            log.debug("Statuses of {} topics written back for cluster {}", statusUpdates.size(), kafkaAsyncExecutorConfig.getName());
+        }
+    }
+
+    /**
+     * The broker view of a topic changed by ns4kafka
+     * @param topic The ns4kafka topic applied to the broker
+     * @param brokerTopic The broker topic before the change, null if it was created
+     */
+    private Topic toBrokerTopic(Topic topic, Topic brokerTopic) {
+        Topic.TopicSpec spec = brokerTopic != null ? brokerTopic.getSpec() : topic.getSpec();
+        return Topic.builder()
+                .metadata(ObjectMeta.builder()
+                        .cluster(kafkaAsyncExecutorConfig.getName())
+                        .name(topic.getMetadata().getName())
+                        .build())
+                .spec(Topic.TopicSpec.builder()
+                        .replicationFactor(spec.getReplicationFactor())
+                        .partitions(spec.getPartitions())
+                        .configs(topic.getSpec().getConfigs() == null ? Map.of() : Map.copyOf(topic.getSpec().getConfigs()))
+                        .build())
+                .build();
     }
+
     private void deleteTopics(List<Topic> topics) {
         //TODO What's the best way to prevent delete __consumer_offsets and other internal topics ?
         // delete only topics that belongs to a namespace and ignore others ?
@@ -136,13 +290,96 @@ public class TopicAsyncExecutor {
     }
     public void deleteTopic(Topic topic) throws InterruptedException, ExecutionException, TimeoutException {
         getAdminClient().deleteTopics(List.of(topic.getMetadata().getName())).all().get(30, TimeUnit.SECONDS);
+        brokerTopicCache.remove(topic.getMetadata().getName());
         log.info("Success deleting topic {} on {}", topic.getMetadata().getName(), this.kafkaAsyncExecutorConfig.getName());
     }
 
+    /**
+     * Get the topics of the cluster from the cache refreshed by the reconciliation cycle.
+     * A cache older than the refresh interval is reloaded in the background, a request only waits for the reload,
+     * up to the load timeout, when the cache is older than the max staleness.
+     * @return The broker topics by name
+     * @throws BrokerTopicsNotLoadedException if the cache is still not loaded, or older than the max staleness, after the load timeout
+     */
     public Map<String, Topic> collectBrokerTopics() throws ExecutionException, InterruptedException, TimeoutException {
-        return collectBrokerTopicsFromNames(listBrokerTopicNames());
+        return getBrokerTopicCache().getTopics();
     }
+
     public List<String> listBrokerTopicNames() throws InterruptedException, ExecutionException, TimeoutException {
+        return new ArrayList<>(collectBrokerTopics().keySet());
+    }
+
+    public Map<String, Topic> collectBrokerTopicsFromNames(List<String> topicNames) throws InterruptedException, ExecutionException, TimeoutException {
+        Map<String, Topic> brokerTopics = collectBrokerTopics();
+        return topicNames.stream()
+                .filter(brokerTopics::containsKey)
+                .collect(Collectors.toMap(Function.identity(), brokerTopics::get));
+    }
+
+    /**
+     * Find the broker topics whose name collides with a topic name once dots are replaced by underscores
+     * @param topicName The topic name
+     * @return The colliding topic names, including the topic itself if it exists
+     * @throws BrokerTopicsNotLoadedException if the cache is still not loaded, or older than the max staleness, after the load timeout
+     */
+    public Set<String> findCollidingBrokerTopics(String topicName) throws InterruptedException, ExecutionException, TimeoutException {
+        return getBrokerTopicCache().findCollidingTopicNames(topicName);
+    }
+
+    private BrokerTopicCache getBrokerTopicCache() throws InterruptedException {
+        if (!brokerTopicCache.isOlderThan(brokerCacheRefreshInterval)) {
+            return brokerTopicCache;
+        }
+        CompletableFuture<Void> refresh = refreshBrokerTopicsInBackground();
+        if (brokerTopicCache.isOlderThan(brokerCacheMaxStaleness)) {
+            // not loaded yet or not refreshed for too long, wait a bit for the refresh in flight
+            try {
+                refresh.get(brokerCacheLoadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new BrokerTopicsNotLoadedException(kafkaAsyncExecutorConfig.getName());
+            }
+        }
+        return brokerTopicCache;
+    }
+
+    /**
+     * Refresh the broker topics on another thread, unless a refresh is already in flight
+     * @return The refresh in flight
+     */
+    private CompletableFuture<Void> refreshBrokerTopicsInBackground() {
+        synchronized (refreshLock) {
+            if (pendingRefresh == null) {
+                CompletableFuture<Void> refresh = new CompletableFuture<>();
+                pendingRefresh = refresh;
+                Completable.fromAction(this::refreshBrokerTopics)
+                        .subscribeOn(Schedulers.io())
+                        .doFinally(() -> {
+                            synchronized (refreshLock) {
+                                pendingRefresh = null;
+                            }
+                        })
+                        .subscribe(() -> {
+                            log.debug("Broker topics refreshed for cluster {}", kafkaAsyncExecutorConfig.getName());
+                            refresh.complete(null);
+                        }, e -> {
+                            log.error("Error while refreshing the broker topics of cluster {}", kafkaAsyncExecutorConfig.getName(), e);
+                            refresh.completeExceptionally(e);
+                        });
+            }
+            return pendingRefresh;
+        }
+    }
+
+    private synchronized void refreshBrokerTopics() throws InterruptedException, ExecutionException, TimeoutException {
+        // another thread may have refreshed the cache meanwhile
+        if (!brokerTopicCache.isOlderThan(brokerCacheRefreshInterval)) {
+            return;
+        }
+        List<String> brokerTopicNames = fetchBrokerTopicNames();
+        brokerTopicCache.replace(collectBrokerTopicsFromNames(brokerTopicNames, new HashSet<>()), brokerTopicNames);
+    }
+
+    private List<String> fetchBrokerTopicNames() throws InterruptedException, ExecutionException, TimeoutException {
         return getAdminClient().listTopics().listings()
                 .get(30, TimeUnit.SECONDS)
                 .stream()
@@ -150,50 +387,85 @@ public class TopicAsyncExecutor {
                 .collect(Collectors.toList());
     }
 
-    public Map<String, Topic> collectBrokerTopicsFromNames(List<String> topicNames) throws InterruptedException, ExecutionException, TimeoutException {
-        Map<String, TopicDescription> topicDescriptions = getAdminClient().describeTopics(topicNames).all().get();
-        // Create a Map<TopicName, Map<ConfigName, ConfigValue>> for all topics
-        // includes only Dynamic config properties
-        return getAdminClient()
-                .describeConfigs(topicNames.stream()
+    /**
+     * Describe the topics by chunks, a few chunks at a time, so that no single AdminClient request grows with the cluster
+     * @param topicNames The topics to describe
+     * @param failedTopicNames Filled with the topics of the chunks that could not be described, they are missing from the result
+     * @return The described topics by name
+     */
+    Map<String, Topic> collectBrokerTopicsFromNames(List<String> topicNames, Set<String> failedTopicNames) throws InterruptedException {
+        Map<String, Topic> brokerTopics = new HashMap<>();
+        Deque<DescribeChunk> inFlight = new ArrayDeque<>();
+        for (int i = 0; i < topicNames.size(); i += describeChunkSize) {
+            if (inFlight.size() >= describeParallelism) {
+                awaitChunk(inFlight.removeFirst(), brokerTopics, failedTopicNames);
+            }
+            inFlight.addLast(describeChunk(topicNames.subList(i, Math.min(i + describeChunkSize, topicNames.size()))));
+        }
+        while (!inFlight.isEmpty()) {
+            awaitChunk(inFlight.removeFirst(), brokerTopics, failedTopicNames);
+        }
+        return brokerTopics;
+    }
+
+    private DescribeChunk describeChunk(List<String> topicNames) {
+        return new DescribeChunk(topicNames,
+                getAdminClient().describeTopics(topicNames).all(),
+                getAdminClient().describeConfigs(topicNames.stream()
                         .map(s -> new ConfigResource(ConfigResource.Type.TOPIC, s))
                         .collect(Collectors.toList())
-                )
-                //.describeConfigs(List.of(new ConfigResource(ConfigResource.Type.TOPIC,"*")))
-                .all()
-                .get(30, TimeUnit.SECONDS)
-                .entrySet()
-                .stream()
-                .collect(Collectors.toMap(
-                        configResourceConfigEntry -> configResourceConfigEntry.getKey().name()
-                        , configResourceConfigEntry ->
-                                configResourceConfigEntry.getValue().entries()
-                                        .stream()
-                                        .filter( configEntry -> configEntry.source() == ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG)
-                                        .collect(Collectors.toMap(ConfigEntry::name, ConfigEntry::value))
-                ))
-                .entrySet()
-                .stream()
-                .map(stringMapEntry -> Topic.builder()
+                ).all());
+    }
+
+    private void awaitChunk(DescribeChunk chunk, Map<String, Topic> brokerTopics, Set<String> failedTopicNames) throws InterruptedException {
+        try {
+            Map<String, TopicDescription> topicDescriptions = chunk.descriptions.get(30, TimeUnit.SECONDS);
+            // includes only Dynamic config properties
+            chunk.configs.get(30, TimeUnit.SECONDS).forEach((configResource, config) -> {
+                TopicDescription topicDescription = topicDescriptions.get(configResource.name());
+                brokerTopics.put(configResource.name(), Topic.builder()
                         .metadata(ObjectMeta.builder()
                                 .cluster(kafkaAsyncExecutorConfig.getName())
-                                .name(stringMapEntry.getKey())
+                                .name(configResource.name())
                                 .build())
                         .spec(Topic.TopicSpec.builder()
-                                .replicationFactor(topicDescriptions.get(stringMapEntry.getKey()).partitions().get(0).replicas().size())
-                                .partitions(topicDescriptions.get(stringMapEntry.getKey()).partitions().size())
-                                .configs(stringMapEntry.getValue())
+                                .replicationFactor(topicDescription.partitions().get(0).replicas().size())
+                                .partitions(topicDescription.partitions().size())
+                                .configs(config.entries()
+                                        .stream()
+                                        .filter(configEntry -> configEntry.source() == ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG)
+                                        .collect(Collectors.toMap(ConfigEntry::name, ConfigEntry::value)))
                                 .build())
-                        .build()
-                )
-                .collect(Collectors.toMap( topic -> topic.getMetadata().getName(), Function.identity()));
+                        .build());
+            });
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            log.error("Error while describing {} topics of cluster {}, they are skipped", chunk.topicNames.size(), kafkaAsyncExecutorConfig.getName(), e);
+            failedTopicNames.addAll(chunk.topicNames);
+        }
     }
-    private void alterTopics(Map<ConfigResource, Collection<AlterConfigOp>> toUpdate, List<Topic> topics) {
+
+    /**
+     * The pending describe requests of a chunk of topics
+     */
+    private static class DescribeChunk {
+        private final List<String> topicNames;
+        private final KafkaFuture<Map<String, TopicDescription>> descriptions;
+        private final KafkaFuture<Map<ConfigResource, Config>> configs;
+
+        private DescribeChunk(List<String> topicNames, KafkaFuture<Map<String, TopicDescription>> descriptions,
+                              KafkaFuture<Map<ConfigResource, Config>> configs) {
+            this.topicNames = topicNames;
+            this.descriptions = descriptions;
+            this.configs = configs;
+        }
+    }
+
+    private void alterTopics(Map<ConfigResource, Collection<AlterConfigOp>> toUpdate, Map<String, Topic> topicsByName, List<Topic> statusUpdates) {
         AlterConfigsResult alterConfigsResult = getAdminClient().incrementalAlterConfigs(toUpdate);
         alterConfigsResult.values().entrySet()
                 .stream()
                 .forEach(mapEntry -> {
-                    Topic updatedTopic = topics.stream().filter(t -> t.getMetadata().getName().equals(mapEntry.getKey().name())).findFirst().get();
+                    Topic updatedTopic = topicsByName.get(mapEntry.getKey().name());
                     try {
                         mapEntry.getValue().get(10, TimeUnit.SECONDS);
                         Collection<AlterConfigOp> ops = toUpdate.get(mapEntry.getKey());
@@ -211,10 +483,10 @@ public class TopicAsyncExecutor {
                         updatedTopic.setStatus(Topic.TopicStatus.ofFailed("Error while updating topic configs: "+e.getMessage()));
                         log.error(String.format("Error while updating topic configs %s on %s", mapEntry.getKey().name(),this.kafkaAsyncExecutorConfig.getName()), e);
                     }
-                    topicRepository.create(updatedTopic);
+                    statusUpdates.add(updatedTopic);
                 });
     }
-    private void createTopics(List<Topic> topics) {
+    private void createTopics(List<Topic> topics, List<Topic> statusUpdates) {
         List<NewTopic> newTopics = topics.stream()
                 .map(topic -> {
                     log.debug("Creating topic {} on {}",topic.getMetadata().getName(),topic.getMetadata().getCluster());
@@ -224,11 +496,12 @@ public class TopicAsyncExecutor {
                     return newTopic;
                 })
                 .collect(Collectors.toList());
+        Map<String, Topic> topicsByName = Reconciler.index(topics, topic -> topic.getMetadata().getName());
         CreateTopicsResult createTopicsResult = getAdminClient().createTopics(newTopics);
         createTopicsResult.values().entrySet()
                 .stream()
                 .forEach(mapEntry -> {
-                    Topic createdTopic = topics.stream().filter(t -> t.getMetadata().getName().equals(mapEntry.getKey())).findFirst().get();
+                    Topic createdTopic = topicsByName.get(mapEntry.getKey());
                     try {
                         mapEntry.getValue().get(10, TimeUnit.SECONDS);
                         createdTopic.getMetadata().setCreationTimestamp(Date.from(Instant.now()));
@@ -242,10 +515,15 @@ public class TopicAsyncExecutor {
                         createdTopic.setStatus(Topic.TopicStatus.ofFailed("Error while creating topic: "+e.getMessage()));
                         log.error(String.format("Error while creating topic %s on %s", mapEntry.getKey(),this.kafkaAsyncExecutorConfig.getName()), e);
                     }
-                    topicRepository.create(createdTopic);
+                    statusUpdates.add(createdTopic);
                 });
     }
  
+    private Collection<AlterConfigOp> computeConfigChanges(Topic expectedTopic, Topic actualTopic) {
+        Map<String,String> expected = expectedTopic.getSpec().getConfigs() == null ? Map.of() : expectedTopic.getSpec().getConfigs();
+        return computeConfigChanges(expected, actualTopic.getSpec().getConfigs());
+    }
+
     private Collection<AlterConfigOp> computeConfigChanges(Map<String,String> expected, Map<String,String> actual){
         List<AlterConfigOp> toCreate = expected.entrySet()
                 .stream()
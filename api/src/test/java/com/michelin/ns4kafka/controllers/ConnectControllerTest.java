@@ -77,11 +77,51 @@ public class ConnectControllerTest {
                         Connector.builder().metadata(ObjectMeta.builder().name("connect1").build()).build(),
                         Connector.builder().metadata(ObjectMeta.builder().name("connect2").build()).build()
                 ));
+        Mockito.when(kafkaConnectService.withStatus(ArgumentMatchers.eq(ns), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
 
         List<Connector> actual = connectController.list("test");
         Assertions.assertEquals(2, actual.size());
     }
 
+    @Test
+    void listConnectorsTaggedWithStatus() {
+        Namespace ns = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("test")
+                        .cluster("local")
+                        .build())
+                .build();
+        Connector connector = Connector.builder().metadata(ObjectMeta.builder().name("connect1").resourceVersion(12).build()).build();
+        Mockito.when(namespaceService.findByName("test"))
+                .thenReturn(Optional.of(ns));
+        Mockito.when(kafkaConnectService.findAllForNamespace(ns))
+                .thenReturn(List.of(connector));
+        Mockito.when(kafkaConnectService.withStatus(ns, connector))
+                .thenReturn(Connector.builder()
+                        .metadata(connector.getMetadata())
+                        .status(Connector.ConnectorStatus.builder().state(Connector.TaskState.RUNNING).build())
+                        .build());
+
+        HttpResponse<?> actual = connectController.list("test", false, Optional.empty(), Optional.empty());
+        String eTag = actual.getHeaders().get("ETag");
+        Assertions.assertEquals(HttpStatus.OK, actual.getStatus());
+        Assertions.assertEquals(Connector.TaskState.RUNNING, ((List<Connector>) actual.body()).get(0).getStatus().getState());
+
+        actual = connectController.list("test", false, Optional.empty(), Optional.of(eTag));
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatus());
+
+        // the connector failed, its resource version stays the same
+        Mockito.when(kafkaConnectService.withStatus(ns, connector))
+                .thenReturn(Connector.builder()
+                        .metadata(connector.getMetadata())
+                        .status(Connector.ConnectorStatus.builder().state(Connector.TaskState.FAILED).build())
+                        .build());
+        actual = connectController.list("test", false, Optional.empty(), Optional.of(eTag));
+        Assertions.assertEquals(HttpStatus.OK, actual.getStatus());
+        Assertions.assertNotEquals(eTag, actual.getHeaders().get("ETag"));
+    }
+
     @Test
     void getConnectorEmpty() {
         Namespace ns = Namespace.builder()
@@ -113,6 +153,8 @@ public class ConnectControllerTest {
                 .thenReturn(Optional.of(
                         Connector.builder().metadata(ObjectMeta.builder().name("connect1").build()).build()
                 ));
+        Mockito.when(kafkaConnectService.withStatus(ArgumentMatchers.eq(ns), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
 
         Optional<Connector> actual = connectController.getConnector("test", "connect1");
         Assertions.assertTrue(actual.isPresent());
@@ -643,4 +685,118 @@ public class ConnectControllerTest {
         Assertions.assertEquals(HttpStatus.NO_CONTENT, actual.body().getStatus().getCode());
         Assertions.assertEquals("connect1", actual.body().getMetadata().getName());
     }
+
+    @Test
+    void changeStatesByName() {
+        Namespace ns = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("test")
+                        .cluster("local")
+                        .build())
+                .build();
+        Connector connector1 = Connector.builder().metadata(ObjectMeta.builder().name("connect1").build()).build();
+        Connector connector2 = Connector.builder().metadata(ObjectMeta.builder().name("connect2").build()).build();
+        Connector connector3 = Connector.builder().metadata(ObjectMeta.builder().name("connect3").build()).build();
+        Mockito.when(namespaceService.findByName("test"))
+                .thenReturn(Optional.of(ns));
+        Mockito.when(kafkaConnectService.isNamespaceOwnerOfConnect(ArgumentMatchers.eq(ns), ArgumentMatchers.anyString()))
+                .thenReturn(true);
+        Mockito.when(kafkaConnectService.findAllForNamespace(ns))
+                .thenReturn(List.of(connector1, connector2, connector3));
+        Mockito.when(kafkaConnectService.pause(ns, connector1))
+                .thenReturn(HttpResponse.accepted());
+        Mockito.when(kafkaConnectService.pause(ns, connector2))
+                .thenThrow(new HttpClientResponseException("Error", HttpResponse.serverError()));
+
+        ChangeConnectorState changeConnectorState = ChangeConnectorState.builder()
+                .spec(ChangeConnectorState.ChangeConnectorStateSpec.builder()
+                        .action(ChangeConnectorState.ConnectorAction.pause)
+                        .connectors(List.of("connect1", "connect2", "missing"))
+                        .build())
+                .build();
+
+        List<ChangeConnectorState> actual = connectController.changeStates("test", changeConnectorState);
+
+        Assertions.assertEquals(3, actual.size());
+        Assertions.assertEquals("connect1", actual.get(0).getMetadata().getName());
+        Assertions.assertTrue(actual.get(0).getStatus().isSuccess());
+        Assertions.assertEquals(HttpStatus.ACCEPTED, actual.get(0).getStatus().getCode());
+        Assertions.assertEquals("connect2", actual.get(1).getMetadata().getName());
+        Assertions.assertFalse(actual.get(1).getStatus().isSuccess());
+        Assertions.assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, actual.get(1).getStatus().getCode());
+        Assertions.assertEquals("missing", actual.get(2).getMetadata().getName());
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, actual.get(2).getStatus().getCode());
+        verify(kafkaConnectService, never()).pause(ns, connector3);
+    }
+
+    @Test
+    void changeStatesByLabel() {
+        Namespace ns = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("test")
+                        .cluster("local")
+                        .build())
+                .build();
+        Connector connector1 = Connector.builder().metadata(ObjectMeta.builder().name("connect1")
+                .labels(Map.of("team", "a", "env", "dev")).build()).build();
+        Connector connector2 = Connector.builder().metadata(ObjectMeta.builder().name("connect2")
+                .labels(Map.of("team", "b")).build()).build();
+        Connector connector3 = Connector.builder().metadata(ObjectMeta.builder().name("connect3").build()).build();
+        Mockito.when(namespaceService.findByName("test"))
+                .thenReturn(Optional.of(ns));
+        Mockito.when(kafkaConnectService.findAllForNamespace(ns))
+                .thenReturn(List.of(connector1, connector2, connector3));
+        Mockito.when(kafkaConnectService.restart(ns, connector1))
+                .thenReturn(HttpResponse.ok());
+
+        ChangeConnectorState changeConnectorState = ChangeConnectorState.builder()
+                .spec(ChangeConnectorState.ChangeConnectorStateSpec.builder()
+                        .action(ChangeConnectorState.ConnectorAction.restart)
+                        .labelSelector(Map.of("team", "a"))
+                        .build())
+                .build();
+
+        List<ChangeConnectorState> actual = connectController.changeStates("test", changeConnectorState);
+
+        Assertions.assertEquals(1, actual.size());
+        Assertions.assertEquals("connect1", actual.get(0).getMetadata().getName());
+        Assertions.assertTrue(actual.get(0).getStatus().isSuccess());
+        verify(kafkaConnectService, times(1)).restart(any(), any());
+    }
+
+    @Test
+    void changeStatesInvalid() {
+        Namespace ns = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("test")
+                        .cluster("local")
+                        .build())
+                .build();
+        Mockito.when(namespaceService.findByName("test"))
+                .thenReturn(Optional.of(ns));
+        Mockito.when(kafkaConnectService.isNamespaceOwnerOfConnect(ns, "connect1"))
+                .thenReturn(true);
+        Mockito.when(kafkaConnectService.isNamespaceOwnerOfConnect(ns, "other"))
+                .thenReturn(false);
+
+        ChangeConnectorState notOwned = ChangeConnectorState.builder()
+                .spec(ChangeConnectorState.ChangeConnectorStateSpec.builder()
+                        .action(ChangeConnectorState.ConnectorAction.resume)
+                        .connectors(List.of("connect1", "other"))
+                        .build())
+                .build();
+        ResourceValidationException actual = Assertions.assertThrows(ResourceValidationException.class,
+                () -> connectController.changeStates("test", notOwned));
+        Assertions.assertEquals(List.of("Invalid value other for spec.connectors: Namespace not OWNER of this connector"),
+                actual.getValidationErrors());
+
+        ChangeConnectorState noSelector = ChangeConnectorState.builder()
+                .spec(ChangeConnectorState.ChangeConnectorStateSpec.builder()
+                        .action(ChangeConnectorState.ConnectorAction.resume)
+                        .build())
+                .build();
+        Assertions.assertThrows(ResourceValidationException.class,
+                () -> connectController.changeStates("test", noSelector));
+        verify(kafkaConnectService, never()).resume(any(), any());
+    }
 }
@@ -88,6 +88,41 @@ public class TopicControllerTest {
         Assertions.assertEquals("topic2", actual.get(1).getMetadata().getName());
     }
 
+    @Test
+    public void ListTopicsNotModified() {
+        Namespace ns = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("test")
+                        .cluster("local")
+                        .build())
+                .build();
+        Mockito.when(namespaceService.findByName("test"))
+                .thenReturn(Optional.of(ns));
+        when(topicService.findAllForNamespace(ns))
+                .thenReturn(List.of(
+                        Topic.builder().metadata(ObjectMeta.builder().name("topic1").resourceVersion(12).build()).build(),
+                        Topic.builder().metadata(ObjectMeta.builder().name("topic2").resourceVersion(15).build()).build()
+                ));
+
+        HttpResponse<?> actual = topicController.list("test", false, Optional.empty(), Optional.empty());
+        String eTag = actual.getHeaders().get("ETag");
+        Assertions.assertEquals(HttpStatus.OK, actual.getStatus());
+        Assertions.assertTrue(eTag.startsWith("\"15-"));
+
+        actual = topicController.list("test", false, Optional.empty(), Optional.of(eTag));
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatus());
+        Assertions.assertTrue(actual.getBody().isEmpty());
+
+        // topic1 no longer owned, the last version stays the same
+        when(topicService.findAllForNamespace(ns))
+                .thenReturn(List.of(
+                        Topic.builder().metadata(ObjectMeta.builder().name("topic2").resourceVersion(15).build()).build()
+                ));
+        actual = topicController.list("test", false, Optional.empty(), Optional.of(eTag));
+        Assertions.assertEquals(HttpStatus.OK, actual.getStatus());
+        Assertions.assertNotEquals(eTag, actual.getHeaders().get("ETag"));
+    }
+
     @Test
     public void GetEmptyTopic() {
         Namespace ns = Namespace.builder()
@@ -454,8 +489,7 @@ public class TopicControllerTest {
                 .thenReturn(Optional.of(ns));
         when(topicService.listUnsynchronizedTopics(ns))
                 .thenReturn(List.of(topic1, topic2));
-        when(topicService.create(topic1)).thenReturn(topic1);
-        when(topicService.create(topic2)).thenReturn(topic2);
+        when(topicService.createAll(List.of(topic1, topic2))).thenReturn(List.of(topic1, topic2));
 
 
         List<Topic> actual = topicController.importResources("test", false);
@@ -0,0 +1,146 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.ApplicationContext;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class KafkaStoreIndexTest {
+    private static final TopicPartition STORE_PARTITION = new TopicPartition("test.store", 0);
+
+    @TempDir
+    Path snapshotDirectory;
+
+    /**
+     * Store of "cluster/name" values, indexed by cluster
+     */
+    static class IndexedKafkaStore extends KafkaStore<String> {
+        IndexedKafkaStore() {
+            super("test.store", new MockProducer<>());
+            addIndex("cluster", value -> value.startsWith("-") ? null : value.substring(0, value.indexOf('/')));
+        }
+
+        @Override
+        String getMessageKey(String message) {
+            return message;
+        }
+
+        List<String> findAllForCluster(String cluster) {
+            return findAllByIndex("cluster", cluster);
+        }
+    }
+
+    private IndexedKafkaStore newStore() {
+        IndexedKafkaStore store = new IndexedKafkaStore();
+        store.initTimeout = 10000;
+        store.applicationContext = Mockito.mock(ApplicationContext.class);
+        store.objectMapper = new ObjectMapper();
+        store.snapshotConfig = new KafkaStoreSnapshotConfig();
+        store.snapshotConfig.setEnabled(true);
+        store.snapshotConfig.setDirectory(snapshotDirectory.toString());
+        return store;
+    }
+
+    private void receive(IndexedKafkaStore store, long offset, String key, String value) {
+        store.receive(new ConsumerRecord<>("test.store", 0, offset, key, value));
+    }
+
+    @Test
+    void updateIndex() {
+        KafkaStoreIndex<String> index = new KafkaStoreIndex<>(value -> value.startsWith("-") ? null : value.substring(0, 1));
+
+        index.update("key1", null, "a1");
+        index.update("key2", null, "a2");
+        index.update("key3", null, "b3");
+        index.update("key4", null, "-4");
+        Assertions.assertEquals(Set.of("a1", "a2"), Set.copyOf(index.get("a")));
+        Assertions.assertEquals(List.of("b3"), index.get("b"));
+        Assertions.assertTrue(index.get("c").isEmpty());
+
+        // the index key of key2 changes
+        index.update("key2", "a2", "b2");
+        Assertions.assertEquals(List.of("a1"), index.get("a"));
+        Assertions.assertEquals(Set.of("b2", "b3"), Set.copyOf(index.get("b")));
+
+        // a value no longer indexed
+        index.update("key1", "a1", "-1");
+        Assertions.assertTrue(index.get("a").isEmpty());
+
+        // tombstone
+        index.update("key3", "b3", null);
+        Assertions.assertEquals(List.of("b2"), index.get("b"));
+
+        // the lists returned are copies
+        index.get("b").clear();
+        Assertions.assertEquals(List.of("b2"), index.get("b"));
+    }
+
+    @Test
+    void storeUpdatesIndex() {
+        IndexedKafkaStore store = newStore();
+
+        receive(store, 0, "topic1", "local/topic1");
+        receive(store, 1, "topic2", "local/topic2");
+        receive(store, 2, "topic3", "other/topic3");
+        Assertions.assertEquals(Set.of("local/topic1", "local/topic2"), Set.copyOf(store.findAllForCluster("local")));
+
+        // topic2 moves to another cluster
+        receive(store, 3, "topic2", "other/topic2");
+        Assertions.assertEquals(List.of("local/topic1"), store.findAllForCluster("local"));
+        Assertions.assertEquals(Set.of("other/topic2", "other/topic3"), Set.copyOf(store.findAllForCluster("other")));
+
+        // topic1 is deleted
+        receive(store, 4, "topic1", null);
+        Assertions.assertTrue(store.findAllForCluster("local").isEmpty());
+        Assertions.assertThrows(KafkaStoreException.class, () -> store.findAllByIndex("unknown", "local"));
+    }
+
+    @Test
+    void indexReloadedAndCleared() {
+        IndexedKafkaStore store = newStore();
+        receive(store, 0, "topic1", "local/topic1");
+        receive(store, 1, "topic2", "other/topic2");
+        store.adminClient = Mockito.mock(AdminClient.class);
+        Mockito.when(store.adminClient.listOffsets(Mockito.anyMap())).thenAnswer(invocation -> {
+            Map<TopicPartition, OffsetSpec> request = invocation.getArgument(0);
+            long offset = request.get(STORE_PARTITION) instanceof OffsetSpec.EarliestSpec ? 0 : 2;
+            return new ListOffsetsResult(Map.of(STORE_PARTITION,
+                    KafkaFuture.completedFuture(new ListOffsetsResult.ListOffsetsResultInfo(offset, -1, Optional.empty()))));
+        });
+        store.waitUntilKafkaReaderReachesLastOffsetInit();
+        store.writeSnapshot();
+
+        // a restarted store fills its index from the snapshot
+        IndexedKafkaStore restarted = newStore();
+        restarted.loadSnapshot();
+        Assertions.assertEquals(List.of("local/topic1"), restarted.findAllForCluster("local"));
+        Assertions.assertEquals(List.of("other/topic2"), restarted.findAllForCluster("other"));
+
+        // the topic was recreated, the store and its index are cleared
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Set.of(STORE_PARTITION));
+        consumer.updateBeginningOffsets(Map.of(STORE_PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(STORE_PARTITION, 0L));
+        restarted.setKafkaConsumer(consumer);
+        restarted.onPartitionsAssigned(Set.of(STORE_PARTITION));
+        Assertions.assertTrue(restarted.findAllForCluster("local").isEmpty());
+        Assertions.assertTrue(restarted.findAllForCluster("other").isEmpty());
+    }
+}
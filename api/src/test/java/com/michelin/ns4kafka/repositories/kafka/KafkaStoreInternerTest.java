@@ -0,0 +1,100 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.michelin.ns4kafka.models.Connector;
+import com.michelin.ns4kafka.models.Namespace;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import com.michelin.ns4kafka.validation.TopicValidator;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class KafkaStoreInternerTest {
+
+    private Topic topic(String name) {
+        // fresh instances, as read from the topic
+        Map<String, String> configs = new LinkedHashMap<>();
+        configs.put(new String("retention.ms"), new String("60000"));
+        configs.put(new String("cleanup.policy"), new String("delete"));
+        return Topic.builder()
+                .metadata(ObjectMeta.builder()
+                        .name(name)
+                        .namespace(new String("ns"))
+                        .cluster(new String("local"))
+                        .build())
+                .spec(Topic.TopicSpec.builder()
+                        .configs(configs)
+                        .build())
+                .build();
+    }
+
+    @Test
+    void deduplicateTopics() {
+        KafkaTopicRepository repository = new KafkaTopicRepository("ns4kafka.topics", new MockProducer<>());
+
+        Topic topic1 = repository.deduplicate(topic("ns-topic1"));
+        Topic topic2 = repository.deduplicate(topic("ns-topic2"));
+
+        Assertions.assertSame(topic1.getMetadata().getCluster(), topic2.getMetadata().getCluster());
+        Assertions.assertSame(topic1.getMetadata().getNamespace(), topic2.getMetadata().getNamespace());
+        Assertions.assertSame(topic1.getSpec().getConfigs(), topic2.getSpec().getConfigs());
+        Assertions.assertEquals(List.of("retention.ms", "cleanup.policy"), List.copyOf(topic1.getSpec().getConfigs().keySet()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> topic1.getSpec().getConfigs().put("retention.ms", "1"));
+    }
+
+    @Test
+    void deduplicateDifferentConfigs() {
+        KafkaTopicRepository repository = new KafkaTopicRepository("ns4kafka.topics", new MockProducer<>());
+        Topic topic = topic("ns-topic2");
+        topic.getSpec().getConfigs().put("retention.ms", "120000");
+
+        Topic topic1 = repository.deduplicate(topic("ns-topic1"));
+        Topic topic2 = repository.deduplicate(topic);
+
+        Assertions.assertNotSame(topic1.getSpec().getConfigs(), topic2.getSpec().getConfigs());
+        Assertions.assertEquals("120000", topic2.getSpec().getConfigs().get("retention.ms"));
+    }
+
+    @Test
+    void deduplicateNamespaceValidators() {
+        KafkaNamespaceRepository repository = new KafkaNamespaceRepository("ns4kafka.namespaces", new MockProducer<>());
+
+        Namespace namespace1 = repository.deduplicate(Namespace.builder()
+                .metadata(ObjectMeta.builder().name("ns1").cluster("local").build())
+                .spec(Namespace.NamespaceSpec.builder().topicValidator(TopicValidator.makeDefault()).build())
+                .build());
+        Namespace namespace2 = repository.deduplicate(Namespace.builder()
+                .metadata(ObjectMeta.builder().name("ns2").cluster("local").build())
+                .spec(Namespace.NamespaceSpec.builder().topicValidator(TopicValidator.makeDefault()).build())
+                .build());
+
+        // validators are mutable, a namespace must not change the validator of another one
+        Assertions.assertNotSame(namespace1.getSpec().getTopicValidator(), namespace2.getSpec().getTopicValidator());
+        Assertions.assertSame(namespace1.getMetadata().getCluster(), namespace2.getMetadata().getCluster());
+    }
+
+    @Test
+    void deduplicateConnectorConfigKeysOnly() {
+        KafkaConnectorRepository repository = new KafkaConnectorRepository("ns4kafka.connectors", new MockProducer<>());
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put(new String("connector.class"), new String("FileStreamSinkConnector"));
+        config.put(new String("connection.password"), new String("secret"));
+
+        Connector connector = repository.deduplicate(Connector.builder()
+                .metadata(ObjectMeta.builder().name("ns-connector1").namespace("ns").cluster("local").build())
+                .spec(Connector.ConnectorSpec.builder().connectCluster("connect1").config(config).build())
+                .build());
+
+        Map<String, String> actual = connector.getSpec().getConfig();
+        Assertions.assertEquals(config, actual);
+        Assertions.assertEquals(List.of("connector.class", "connection.password"), List.copyOf(actual.keySet()));
+        Assertions.assertTrue(actual.keySet().stream().allMatch(key -> key == key.intern()));
+        // values are not added to the JVM string table
+        Assertions.assertNotSame("secret", actual.get("connection.password"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> actual.put("connection.password", "other"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michelin.ns4kafka.models.AuditLog;
+import com.michelin.ns4kafka.models.Namespace;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import com.michelin.ns4kafka.validation.TopicValidator;
+import org.apache.kafka.common.serialization.Serde;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public class KafkaStoreSerdeTest {
+    ObjectMapper jsonMapper = new ObjectMapper();
+
+    private Topic topic() {
+        return Topic.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("ns-topic1")
+                        .namespace("ns")
+                        .cluster("local")
+                        .creationTimestamp(new Date())
+                        .build())
+                .spec(Topic.TopicSpec.builder()
+                        .replicationFactor(3)
+                        .partitions(6)
+                        .configs(Map.of("cleanup.policy", "delete", "retention.ms", "60000"))
+                        .build())
+                .status(Topic.TopicStatus.ofSuccess("Topic created"))
+                .build();
+    }
+
+    @Test
+    void binaryRoundTrip() throws Exception {
+        Serde<Topic> serde = new KafkaStoreSerdeRegistry(KafkaStoreSerde.Format.BINARY, jsonMapper).getSerde(Topic.class);
+        Topic topic = topic();
+
+        byte[] bytes = serde.serializer().serialize("ns4kafka.topics", topic);
+        Topic actual = serde.deserializer().deserialize("ns4kafka.topics", bytes);
+
+        Assertions.assertEquals(KafkaStoreSerde.MAGIC_BINARY_V1, bytes[0]);
+        Assertions.assertEquals(topic, actual);
+        Assertions.assertEquals(topic.getMetadata().getCreationTimestamp(), actual.getMetadata().getCreationTimestamp());
+        Assertions.assertEquals(topic.getStatus().getPhase(), actual.getStatus().getPhase());
+        Assertions.assertTrue(bytes.length < jsonMapper.writeValueAsBytes(topic).length);
+    }
+
+    @Test
+    void binaryRoundTripValidators() {
+        Serde<Namespace> serde = new KafkaStoreSerdeRegistry(KafkaStoreSerde.Format.BINARY, jsonMapper).getSerde(Namespace.class);
+        Namespace namespace = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("ns")
+                        .cluster("local")
+                        .build())
+                .spec(Namespace.NamespaceSpec.builder()
+                        .kafkaUser("user")
+                        .connectClusters(List.of("local"))
+                        .topicValidator(TopicValidator.makeDefault())
+                        .build())
+                .build();
+
+        byte[] bytes = serde.serializer().serialize("ns4kafka.namespaces", namespace);
+
+        Assertions.assertEquals(namespace, serde.deserializer().deserialize("ns4kafka.namespaces", bytes));
+    }
+
+    @Test
+    void readJsonRecords() throws Exception {
+        Serde<Topic> serde = new KafkaStoreSerdeRegistry(KafkaStoreSerde.Format.BINARY, jsonMapper).getSerde(Topic.class);
+        Topic topic = topic();
+
+        // written before the switch to binary
+        byte[] bytes = jsonMapper.writeValueAsBytes(topic);
+
+        Assertions.assertEquals(topic, serde.deserializer().deserialize("ns4kafka.topics", bytes));
+    }
+
+    @Test
+    void writeJson() throws Exception {
+        Serde<Topic> serde = new KafkaStoreSerdeRegistry(KafkaStoreSerde.Format.JSON, jsonMapper).getSerde(Topic.class);
+        Topic topic = topic();
+
+        byte[] bytes = serde.serializer().serialize("ns4kafka.topics", topic);
+
+        Assertions.assertEquals(topic, jsonMapper.readValue(bytes, Topic.class));
+    }
+
+    @Test
+    void tombstones() {
+        Serde<Topic> serde = new KafkaStoreSerdeRegistry(KafkaStoreSerde.Format.BINARY, jsonMapper).getSerde(Topic.class);
+
+        Assertions.assertNull(serde.serializer().serialize("ns4kafka.topics", null));
+        Assertions.assertNull(serde.deserializer().deserialize("ns4kafka.topics", null));
+    }
+
+    @Test
+    void otherTypes() {
+        Assertions.assertNull(new KafkaStoreSerdeRegistry(KafkaStoreSerde.Format.BINARY, jsonMapper).getSerde(AuditLog.class));
+    }
+}
@@ -0,0 +1,364 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import io.micronaut.context.ApplicationContext;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+public class KafkaStoreTest {
+    private static final int READER_POLL_MS = 5;
+    private static final TopicPartition STORE_PARTITION = new TopicPartition("test.store", 0);
+
+    MockProducer<String, String> producer;
+    TestKafkaStore store;
+    ScheduledExecutorService reader;
+    /**
+     * Records missing from the end of the topic, as if compacted away
+     */
+    int compactedTail;
+    @TempDir
+    Path snapshotDirectory;
+
+    /**
+     * Store whose topic is read back from the mock producer history, one poll every READER_POLL_MS
+     */
+    static class TestKafkaStore extends KafkaStore<String> {
+        TestKafkaStore(MockProducer<String, String> producer) {
+            super("test.store", producer);
+        }
+
+        @Override
+        String getMessageKey(String message) {
+            return message;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer());
+        store = newStore(producer);
+
+        reader = Executors.newSingleThreadScheduledExecutor();
+        int[] readOffset = {0};
+        reader.scheduleWithFixedDelay(() -> {
+            List<ProducerRecord<String, String>> history = producer.history();
+            for (; readOffset[0] < history.size(); readOffset[0]++) {
+                ProducerRecord<String, String> record = history.get(readOffset[0]);
+                store.receive(new ConsumerRecord<>(record.topic(), 0, readOffset[0], record.key(), record.value()));
+            }
+        }, READER_POLL_MS, READER_POLL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private TestKafkaStore newStore(MockProducer<String, String> producer) {
+        TestKafkaStore newStore = new TestKafkaStore(producer);
+        newStore.initTimeout = 10000;
+        newStore.applicationContext = Mockito.mock(ApplicationContext.class);
+        newStore.objectMapper = new ObjectMapper();
+        newStore.snapshotConfig = new KafkaStoreSnapshotConfig();
+        newStore.snapshotConfig.setEnabled(true);
+        newStore.snapshotConfig.setDirectory(snapshotDirectory.toString());
+
+        newStore.adminClient = Mockito.mock(AdminClient.class);
+        Mockito.when(newStore.adminClient.listOffsets(Mockito.anyMap())).thenAnswer(invocation -> {
+            Map<TopicPartition, OffsetSpec> request = invocation.getArgument(0);
+            long offset = request.get(STORE_PARTITION) instanceof OffsetSpec.EarliestSpec ? 0 : producer.history().size() + compactedTail;
+            return new ListOffsetsResult(Map.of(STORE_PARTITION,
+                    KafkaFuture.completedFuture(new ListOffsetsResult.ListOffsetsResultInfo(offset, -1, Optional.empty()))));
+        });
+        return newStore;
+    }
+
+    @AfterEach
+    void tearDown() {
+        reader.shutdownNow();
+    }
+
+    @Test
+    void produce() {
+        Assertions.assertEquals("value1", store.produce("key1", "value1"));
+        Assertions.assertEquals("value2", store.produce("key1", "value2"));
+        Assertions.assertNull(store.produce("key1", null));
+        Assertions.assertTrue(store.getKafkaStore().isEmpty());
+    }
+
+    @Test
+    void produceAll() {
+        Map<String, String> messages = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            messages.put("key" + i, "value" + i);
+        }
+
+        Map<String, String> actual = store.produceAll(messages);
+
+        Assertions.assertEquals(messages, actual);
+        Assertions.assertEquals(100, store.getKafkaStore().size());
+    }
+
+    @Test
+    void produceAllNullKey() {
+        Map<String, String> messages = new LinkedHashMap<>();
+        messages.put(null, "value1");
+
+        Assertions.assertThrows(KafkaStoreException.class, () -> store.produceAll(messages));
+        // the maps rejecting null keys are validated too
+        Assertions.assertEquals(Map.of("key1", "value1"), store.produceAll(Map.of("key1", "value1")));
+        Assertions.assertEquals(Map.of("key2", "value2"), store.produceAll(new ConcurrentHashMap<>(Map.of("key2", "value2"))));
+        Assertions.assertTrue(producer.history().stream().noneMatch(record -> record.key() == null));
+    }
+
+    @Test
+    void produceAsyncFailure() {
+        producer = new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+        store = newStore(producer);
+
+        CompletableFuture<String> actual = store.produceAsync("key1", "value1");
+        producer.errorNext(new RuntimeException("broker down"));
+
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, actual::get);
+        Assertions.assertTrue(exception.getCause() instanceof KafkaStoreException);
+    }
+
+    @Test
+    void replayCompactedConditionalWrites() {
+        MockProducer<String, Topic> topicProducer = new MockProducer<>(true, new StringSerializer(), (topic, value) -> new byte[0]);
+        KafkaTopicRepository topics = newTopicRepository(topicProducer);
+        readBack(topicProducer, topics);
+
+        topics.create(buildTopic(3));
+        Topic read = topics.findByName("local", "topic1").orElseThrow();
+        // applied while the status was computed, the outdated status is not written at all
+        topics.create(buildTopic(6));
+        read.setStatus(Topic.TopicStatus.ofSuccess("Topic created"));
+        topics.updateStatuses(List.of(read));
+        Assertions.assertEquals(2, topicProducer.history().size());
+
+        Topic current = topics.findByName("local", "topic1").orElseThrow();
+        current.setStatus(Topic.TopicStatus.ofSuccess("Topic updated"));
+        topics.updateStatuses(List.of(current));
+        Assertions.assertEquals(3, topicProducer.history().size());
+
+        // after compaction the status write-back is the only record left for its key, a replay applies it
+        KafkaTopicRepository replayed = newTopicRepository(topicProducer);
+        ProducerRecord<String, Topic> lastRecord = topicProducer.history().get(2);
+        replayed.receive(new ConsumerRecord<>(lastRecord.topic(), 0, 2, lastRecord.key(), lastRecord.value()));
+        Topic actual = replayed.findByName("local", "topic1").orElseThrow();
+        Assertions.assertEquals(6, actual.getSpec().getPartitions());
+        Assertions.assertEquals("Topic updated", actual.getStatus().getMessage());
+    }
+
+    private KafkaTopicRepository newTopicRepository(MockProducer<String, Topic> topicProducer) {
+        KafkaTopicRepository topics = new KafkaTopicRepository("test.topics", topicProducer);
+        topics.initTimeout = 10000;
+        topics.applicationContext = Mockito.mock(ApplicationContext.class);
+        return topics;
+    }
+
+    private <V> void readBack(MockProducer<String, V> producer, KafkaStore<V> readStore) {
+        int[] readOffset = {0};
+        reader.scheduleWithFixedDelay(() -> {
+            List<ProducerRecord<String, V>> history = producer.history();
+            for (; readOffset[0] < history.size(); readOffset[0]++) {
+                ProducerRecord<String, V> record = history.get(readOffset[0]);
+                readStore.receive(new ConsumerRecord<>(record.topic(), 0, readOffset[0], record.key(), record.value()));
+            }
+        }, READER_POLL_MS, READER_POLL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private Topic buildTopic(int partitions) {
+        return Topic.builder()
+                .metadata(ObjectMeta.builder().name("topic1").namespace("ns").cluster("local").build())
+                .spec(Topic.TopicSpec.builder().partitions(partitions).replicationFactor(3).build())
+                .build();
+    }
+
+    @Test
+    void updatesPausedWhileReading() throws Exception {
+        CompletableFuture<String>[] written = new CompletableFuture[1];
+        store.withUpdatesPaused(() -> {
+            written[0] = store.produceAsync("key1", "value1");
+            try {
+                Thread.sleep(10 * READER_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // the record is read but not applied until the reading ends
+            Assertions.assertFalse(store.getKafkaStore().containsKey("key1"));
+        });
+
+        Assertions.assertEquals("value1", written[0].get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void waitUntilOffsetTimeout() {
+        KafkaStoreException exception = Assertions.assertThrows(KafkaStoreException.class,
+                () -> store.waitUntilOffset(42, 50, TimeUnit.MILLISECONDS));
+        Assertions.assertTrue(exception.getMessage().contains("targetOffset: 42"));
+    }
+
+    @Test
+    void concurrentWritersInFlight() throws Exception {
+        // the records are read back one by one, below
+        reader.shutdownNow();
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            Map<String, Future<String>> results = new LinkedHashMap<>();
+            for (int i = 0; i < writers; i++) {
+                String key = "key" + i;
+                results.put(key, executor.submit(() -> store.produce(key, key)));
+            }
+
+            // every write is sent before any is read, none waits for another one to be applied
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (producer.history().size() < writers && System.nanoTime() < deadline) {
+                Thread.sleep(READER_POLL_MS);
+            }
+            List<ProducerRecord<String, String>> history = producer.history();
+            Assertions.assertEquals(writers, history.size());
+
+            // each writer is released by its own offset, not before
+            for (int offset = 0; offset < writers; offset++) {
+                ProducerRecord<String, String> record = history.get(offset);
+                Assertions.assertFalse(results.get(record.key()).isDone());
+                store.receive(new ConsumerRecord<>(record.topic(), 0, offset, record.key(), record.value()));
+                Assertions.assertEquals(record.key(), results.get(record.key()).get(10, TimeUnit.SECONDS));
+                for (int next = offset + 1; next < writers; next++) {
+                    Assertions.assertFalse(results.get(history.get(next).key()).isDone());
+                }
+            }
+            Assertions.assertEquals(writers, store.getKafkaStore().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void snapshotWarmStart() {
+        store.produce("key1", "value1");
+        store.produce("key2", "value2");
+        store.produce("key1", null);
+        store.waitUntilKafkaReaderReachesLastOffsetInit();
+        store.writeSnapshot();
+
+        TestKafkaStore restarted = newStore(producer);
+        restarted.loadSnapshot();
+        Assertions.assertEquals(Map.of("key2", "value2"), restarted.getKafkaStore());
+
+        // the consumer resumes right after the tombstone
+        TopicPartition partition = new TopicPartition("test.store", 0);
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Set.of(partition));
+        consumer.updateEndOffsets(Map.of(partition, 10L));
+        restarted.setKafkaConsumer(consumer);
+        restarted.onPartitionsAssigned(Set.of(partition));
+        Assertions.assertEquals(3L, consumer.position(partition));
+        // the listeners are told the store was loaded up to the snapshot offset
+        assertReset(restarted, 2L);
+    }
+
+    @Test
+    void snapshotBeyondTopicEnd() {
+        store.produce("key1", "value1");
+        store.waitUntilKafkaReaderReachesLastOffsetInit();
+        store.writeSnapshot();
+
+        TestKafkaStore restarted = newStore(producer);
+        restarted.loadSnapshot();
+
+        // the topic was recreated and is now empty
+        TopicPartition partition = new TopicPartition("test.store", 0);
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Set.of(partition));
+        consumer.updateBeginningOffsets(Map.of(partition, 0L));
+        consumer.updateEndOffsets(Map.of(partition, 0L));
+        restarted.setKafkaConsumer(consumer);
+        restarted.onPartitionsAssigned(Set.of(partition));
+
+        Assertions.assertTrue(restarted.getKafkaStore().isEmpty());
+        Assertions.assertEquals(0L, consumer.position(partition));
+        assertReset(restarted, -1L);
+    }
+
+    private void assertReset(TestKafkaStore restarted, long offset) {
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(restarted.applicationContext).publishEvent(event.capture());
+        KafkaStoreEvent<?> reset = (KafkaStoreEvent<?>) event.getValue();
+        Assertions.assertTrue(reset.isReset());
+        Assertions.assertTrue(reset.isOf(String.class));
+        Assertions.assertEquals(offset, reset.getOffset());
+    }
+
+    @Test
+    void catchUpWithoutWrite() {
+        store.produce("key1", "value1");
+        store.produce("key2", "value2");
+
+        store.waitUntilKafkaReaderReachesLastOffsetInit();
+
+        Assertions.assertTrue(store.isInitialized());
+        Assertions.assertEquals(2, producer.history().size());
+    }
+
+    @Test
+    void catchUpEmptyTopic() {
+        store.waitUntilKafkaReaderReachesLastOffsetInit();
+
+        Assertions.assertTrue(store.isInitialized());
+        Assertions.assertTrue(producer.history().isEmpty());
+    }
+
+    @Test
+    void catchUpCompactedTail() {
+        compactedTail = 1;
+        // the consumer fetched past the records compacted away
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(Set.of(STORE_PARTITION));
+        consumer.seek(STORE_PARTITION, 1 + compactedTail);
+        store.setKafkaConsumer(consumer);
+        store.produce("key1", "value1");
+
+        store.waitUntilKafkaReaderReachesLastOffsetInit();
+
+        Assertions.assertTrue(store.isInitialized());
+        Assertions.assertEquals(1, producer.history().size());
+    }
+
+    @Test
+    void catchUpReaderBehind() {
+        store.produce("key1", "value1");
+        // the reader hasn't fetched the last record yet
+        compactedTail = 1;
+        store.initTimeout = 200;
+
+        store.waitUntilKafkaReaderReachesLastOffsetInit();
+
+        Assertions.assertFalse(store.isInitialized());
+        Assertions.assertEquals(1, producer.history().size());
+    }
+}
@@ -0,0 +1,117 @@
+package com.michelin.ns4kafka.repositories.kafka;
+
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import io.micronaut.context.ApplicationContext;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class KafkaTopicRepositoryTest {
+    MockProducer<String, Topic> producer;
+    KafkaTopicRepository repository;
+    ScheduledExecutorService reader;
+
+    @BeforeEach
+    void setUp() {
+        producer = new MockProducer<>(true, new StringSerializer(), (topic, value) -> new byte[0]);
+        repository = new KafkaTopicRepository("ns4kafka.topics", producer);
+        repository.initTimeout = 10000;
+        repository.applicationContext = Mockito.mock(ApplicationContext.class);
+
+        // the topic is read back from the mock producer history
+        reader = Executors.newSingleThreadScheduledExecutor();
+        int[] readOffset = {0};
+        reader.scheduleWithFixedDelay(() -> {
+            List<ProducerRecord<String, Topic>> history = producer.history();
+            for (; readOffset[0] < history.size(); readOffset[0]++) {
+                ProducerRecord<String, Topic> record = history.get(readOffset[0]);
+                repository.receive(new ConsumerRecord<>(record.topic(), 0, readOffset[0], record.key(), record.value()));
+            }
+        }, 5, 5, TimeUnit.MILLISECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reader.shutdownNow();
+    }
+
+    @Test
+    void updateStatuses() {
+        repository.create(buildTopic("topic1", 3));
+        Topic read = repository.findByName("local", "topic1").orElseThrow();
+
+        read.setStatus(Topic.TopicStatus.ofSuccess("Topic created"));
+        repository.updateStatuses(List.of(read));
+
+        Topic actual = repository.findByName("local", "topic1").orElseThrow();
+        Assertions.assertEquals(Topic.TopicPhase.Success, actual.getStatus().getPhase());
+        Assertions.assertEquals(1L, actual.getMetadata().getResourceVersion());
+    }
+
+    @Test
+    void updateStatusesAfterConcurrentApply() {
+        repository.create(buildTopic("topic1", 3));
+        repository.create(buildTopic("topic2", 3));
+        // read by the synchronization before the broker calls
+        Topic read1 = repository.findByName("local", "topic1").orElseThrow();
+        Topic read2 = repository.findByName("local", "topic2").orElseThrow();
+
+        // applied while the broker is called
+        repository.create(buildTopic("topic1", 6));
+        read1.setStatus(Topic.TopicStatus.ofSuccess("Topic created"));
+        read2.setStatus(Topic.TopicStatus.ofSuccess("Topic created"));
+        List<Topic> actual = repository.updateStatuses(List.of(read1, read2));
+
+        // the new spec is kept, the topic unchanged meanwhile gets its status
+        Topic topic1 = repository.findByName("local", "topic1").orElseThrow();
+        Assertions.assertEquals(6, topic1.getSpec().getPartitions());
+        Assertions.assertNull(topic1.getStatus());
+        Assertions.assertEquals(Topic.TopicPhase.Success, repository.findByName("local", "topic2").orElseThrow().getStatus().getPhase());
+        Assertions.assertEquals(List.of(topic1, repository.findByName("local", "topic2").orElseThrow()), actual);
+    }
+
+    @Test
+    void updateStatusesAfterConcurrentDelete() {
+        repository.create(buildTopic("topic1", 3));
+        Topic read = repository.findByName("local", "topic1").orElseThrow();
+
+        repository.delete(read);
+        read.setStatus(Topic.TopicStatus.ofSuccess("Topic created"));
+        repository.updateStatuses(List.of(read));
+
+        Assertions.assertTrue(repository.findByName("local", "topic1").isEmpty());
+    }
+
+    @Test
+    void findAllCollidingWithBackToBack() {
+        // the second apply sees the first one before the synchronization creates it
+        repository.create(buildTopic("project1.topic", 3));
+
+        Assertions.assertEquals(List.of("project1.topic"), repository.findAllCollidingWith("local", "project1_topic")
+                .stream().map(topic -> topic.getMetadata().getName()).collect(Collectors.toList()));
+        Assertions.assertTrue(repository.findAllCollidingWith("other", "project1_topic").isEmpty());
+
+        repository.delete(buildTopic("project1.topic", 3));
+        Assertions.assertTrue(repository.findAllCollidingWith("local", "project1_topic").isEmpty());
+    }
+
+    private Topic buildTopic(String name, int partitions) {
+        return Topic.builder()
+                .metadata(ObjectMeta.builder().name(name).namespace("ns").cluster("local").build())
+                .spec(Topic.TopicSpec.builder().partitions(partitions).replicationFactor(3).build())
+                .build();
+    }
+}
@@ -4,6 +4,7 @@ import com.michelin.ns4kafka.models.AccessControlEntry;
 import com.michelin.ns4kafka.models.Namespace;
 import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.repositories.AccessControlEntryRepository;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStoreEvent;
 import io.micronaut.context.ApplicationContext;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -52,7 +53,7 @@ public class AccessControlEntryServiceTest {
                 .thenReturn(namespaceService);
         Mockito.when(namespaceService.findByName("target-ns"))
                 .thenReturn(Optional.empty());
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace"))
                 .thenReturn(List.of());
         List<String> actual = accessControlEntryService.validate(badACL, ns);
         Assertions.assertLinesMatch(List.of(
@@ -89,7 +90,7 @@ public class AccessControlEntryServiceTest {
                 .thenReturn(namespaceService);
         Mockito.when(namespaceService.findByName("namespace"))
                 .thenReturn(Optional.of(ns));
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace"))
                 .thenReturn(List.of());
         List<String> actual = accessControlEntryService.validate(badACL, ns);
         Assertions.assertLinesMatch(List.of(
@@ -124,7 +125,7 @@ public class AccessControlEntryServiceTest {
                 .thenReturn(namespaceService);
         Mockito.when(namespaceService.findByName("target-ns"))
                 .thenReturn(Optional.of(Namespace.builder().build()));
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace"))
                 .thenReturn(List.of(AccessControlEntry.builder()
                         .spec(AccessControlEntry.AccessControlEntrySpec.builder()
                                 .resourceType(AccessControlEntry.ResourceType.TOPIC)
@@ -165,7 +166,7 @@ public class AccessControlEntryServiceTest {
                 .thenReturn(namespaceService);
         Mockito.when(namespaceService.findByName("target-ns"))
                 .thenReturn(Optional.of(Namespace.builder().build()));
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace"))
                 .thenReturn(List.of(AccessControlEntry.builder()
                         .spec(AccessControlEntry.AccessControlEntrySpec.builder()
                                 .resourceType(AccessControlEntry.ResourceType.TOPIC)
@@ -206,7 +207,7 @@ public class AccessControlEntryServiceTest {
                 .thenReturn(namespaceService);
         Mockito.when(namespaceService.findByName("target-ns"))
                 .thenReturn(Optional.of(Namespace.builder().build()));
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace"))
                 .thenReturn(List.of(AccessControlEntry.builder()
                         .spec(AccessControlEntry.AccessControlEntrySpec.builder()
                                 .resourceType(AccessControlEntry.ResourceType.TOPIC)
@@ -247,7 +248,7 @@ public class AccessControlEntryServiceTest {
                 .thenReturn(namespaceService);
         Mockito.when(namespaceService.findByName("target-ns"))
                 .thenReturn(Optional.of(Namespace.builder().metadata(ObjectMeta.builder().name("target-ns").build()).build()));
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace"))
                 .thenReturn(List.of(AccessControlEntry.builder()
                         .spec(AccessControlEntry.AccessControlEntrySpec.builder()
                                 .resourceType(AccessControlEntry.ResourceType.TOPIC)
@@ -286,7 +287,7 @@ public class AccessControlEntryServiceTest {
                         .build())
                 .build();
 
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllForCluster("local"))
                 .thenReturn(List.of(accessControlEntry));
 
         List<String> actual = accessControlEntryService.validateAsAdmin(accessControlEntry, namespace);
@@ -373,7 +374,7 @@ public class AccessControlEntryServiceTest {
                         .grantedTo("target-ns")
                         .build())
                 .build();
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllForCluster("local"))
                 .thenReturn(List.of(existing1, existing2));
 
         // Test 1
@@ -464,7 +465,7 @@ public class AccessControlEntryServiceTest {
                         .grantedTo("target-ns")
                         .build())
                 .build();
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllForCluster("local"))
                 .thenReturn(List.of(existing1, existing2));
 
         // Test 1
@@ -555,7 +556,7 @@ public class AccessControlEntryServiceTest {
                         .grantedTo("target-ns")
                         .build())
                 .build();
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllForCluster("local"))
                 .thenReturn(List.of(existing1, existing2));
 
         // Test 1
@@ -691,7 +692,7 @@ public class AccessControlEntryServiceTest {
                         .grantedTo("target-ns")
                         .build())
                 .build();
-        Mockito.when(accessControlEntryRepository.findAll())
+        Mockito.when(accessControlEntryRepository.findAllForCluster("local"))
                 .thenReturn(List.of(existing1, existing2, existing3));
 
         // Test 1
@@ -707,6 +708,68 @@ public class AccessControlEntryServiceTest {
         Assertions.assertTrue(actual.isEmpty());
     }
 
+    @Test
+    void validateAsAdmin_FailAfterStoreUpdate() {
+        AccessControlEntry existing = AccessControlEntry.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("acl-existing")
+                        .namespace("other-ns")
+                        .cluster("local")
+                        .build())
+                .spec(AccessControlEntry.AccessControlEntrySpec.builder()
+                        .resourceType(AccessControlEntry.ResourceType.TOPIC)
+                        .resourcePatternType(AccessControlEntry.ResourcePatternType.PREFIXED)
+                        .permission(AccessControlEntry.Permission.OWNER)
+                        .resource("project1")
+                        .grantedTo("other-ns")
+                        .build())
+                .build();
+        Namespace namespace = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("target-ns")
+                        .cluster("local")
+                        .build())
+                .build();
+        AccessControlEntry toCreate = AccessControlEntry.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("acl-tocreate")
+                        .namespace("target-ns")
+                        .cluster("local")
+                        .build())
+                .spec(AccessControlEntry.AccessControlEntrySpec.builder()
+                        .resourceType(AccessControlEntry.ResourceType.TOPIC)
+                        .resourcePatternType(AccessControlEntry.ResourcePatternType.LITERAL)
+                        .permission(AccessControlEntry.Permission.OWNER)
+                        .resource("project1_t1")
+                        .grantedTo("target-ns")
+                        .build())
+                .build();
+        Mockito.when(accessControlEntryRepository.findAllForCluster("local"))
+                .thenReturn(List.of());
+
+        List<String> actual = accessControlEntryService.validateAsAdmin(toCreate, namespace);
+        Assertions.assertTrue(actual.isEmpty());
+
+        // ACL created after the cluster index was loaded
+        accessControlEntryService.onApplicationEvent(new KafkaStoreEvent<>("other-ns/acl-existing", null, existing, 1L));
+        actual = accessControlEntryService.validateAsAdmin(toCreate, namespace);
+        Assertions.assertEquals(1, actual.size());
+
+        // ACL deleted
+        accessControlEntryService.onApplicationEvent(new KafkaStoreEvent<>("other-ns/acl-existing", existing, null, 2L));
+        actual = accessControlEntryService.validateAsAdmin(toCreate, namespace);
+        Assertions.assertTrue(actual.isEmpty());
+        Mockito.verify(accessControlEntryRepository, Mockito.times(1)).findAllForCluster("local");
+
+        // the store was reloaded without an event per ACL, the cluster index is loaded again
+        Mockito.when(accessControlEntryRepository.findAllForCluster("local"))
+                .thenReturn(List.of(existing));
+        accessControlEntryService.onApplicationEvent(KafkaStoreEvent.reset(AccessControlEntry.class, 5L));
+        actual = accessControlEntryService.validateAsAdmin(toCreate, namespace);
+        Assertions.assertEquals(1, actual.size());
+        Mockito.verify(accessControlEntryRepository, Mockito.times(2)).findAllForCluster("local");
+    }
+
     @Test
     void findAllGrantedToNamespace() {
         Namespace ns = Namespace.builder()
@@ -718,8 +781,8 @@ public class AccessControlEntryServiceTest {
         AccessControlEntry ace3 = AccessControlEntry.builder()
                 .spec(AccessControlEntry.AccessControlEntrySpec.builder().grantedTo("namespace2").build()).build();
 
-        Mockito.when(accessControlEntryRepository.findAll())
-                .thenReturn(List.of(ace1, ace2, ace3));
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace1"))
+                .thenReturn(List.of(ace1, ace2));
         List<AccessControlEntry> actual = accessControlEntryService.findAllGrantedToNamespace(ns);
         Assertions.assertEquals(2, actual.size());
     }
@@ -738,8 +801,8 @@ public class AccessControlEntryServiceTest {
                 .metadata(ObjectMeta.builder().namespace("namespace2").build())
                 .spec(AccessControlEntry.AccessControlEntrySpec.builder().grantedTo("namespace2").build()).build();
 
-        Mockito.when(accessControlEntryRepository.findAll())
-                .thenReturn(List.of(ace1, ace2, ace3));
+        Mockito.when(accessControlEntryRepository.findAllForNamespace("namespace1"))
+                .thenReturn(List.of(ace1, ace2));
         List<AccessControlEntry> actual = accessControlEntryService.findAllForNamespace(ns);
         Assertions.assertEquals(2, actual.size());
     }
@@ -776,8 +839,10 @@ public class AccessControlEntryServiceTest {
                         .build()
                 )
                 .build();
-        Mockito.when(accessControlEntryRepository.findAll())
-                .thenReturn(List.of(ace1, ace2, ace3));
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace"))
+                .thenReturn(List.of(ace1, ace2));
+        Mockito.when(accessControlEntryRepository.findAllGrantedTo("namespace-other"))
+                .thenReturn(List.of(ace3));
         Assertions.assertTrue(
                 accessControlEntryService.isNamespaceOwnerOfResource("namespace",
                         AccessControlEntry.ResourceType.CONNECT,
@@ -0,0 +1,113 @@
+package com.michelin.ns4kafka.services;
+
+import com.michelin.ns4kafka.models.AccessControlEntry;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+public class AccessControlEntryTrieTest {
+
+    private AccessControlEntry ace(String resource, AccessControlEntry.ResourcePatternType resourcePatternType) {
+        return AccessControlEntry.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("acl-" + resource + "-" + resourcePatternType)
+                        .namespace("namespace")
+                        .build())
+                .spec(AccessControlEntry.AccessControlEntrySpec.builder()
+                        .resourceType(AccessControlEntry.ResourceType.TOPIC)
+                        .resourcePatternType(resourcePatternType)
+                        .permission(AccessControlEntry.Permission.OWNER)
+                        .resource(resource)
+                        .grantedTo("namespace")
+                        .build())
+                .build();
+    }
+
+    @Test
+    void literalAndPrefixed() {
+        AccessControlEntry literal = ace("abc.topic1", AccessControlEntry.ResourcePatternType.LITERAL);
+        AccessControlEntry prefixed = ace("abc.", AccessControlEntry.ResourcePatternType.PREFIXED);
+        AccessControlEntryTrie trie = new AccessControlEntryTrie(List.of(literal, prefixed));
+
+        Assertions.assertEquals(Set.of(literal, prefixed), Set.copyOf(trie.findAllMatching("abc.topic1")));
+        Assertions.assertEquals(List.of(prefixed), trie.findAllMatching("abc.topic2"));
+        Assertions.assertTrue(trie.matches("abc.topic2"));
+        // a LITERAL entry only matches its own resource
+        Assertions.assertTrue(trie.findAllMatching("abc.topic1.suffix").contains(prefixed));
+        Assertions.assertFalse(trie.findAllMatching("abc.topic1.suffix").contains(literal));
+        Assertions.assertFalse(trie.matches("abc"));
+        Assertions.assertTrue(trie.findAllMatching("abc").isEmpty());
+        Assertions.assertFalse(trie.matches("xyz.topic1"));
+
+        AccessControlEntryTrie literalOnly = new AccessControlEntryTrie(List.of(literal));
+        Assertions.assertTrue(literalOnly.matches("abc.topic1"));
+        Assertions.assertFalse(literalOnly.matches("abc.topic"));
+        Assertions.assertFalse(literalOnly.matches("abc.topic10"));
+    }
+
+    @Test
+    void nestedPrefixes() {
+        AccessControlEntry outer = ace("abc", AccessControlEntry.ResourcePatternType.PREFIXED);
+        AccessControlEntry inner = ace("abc.def", AccessControlEntry.ResourcePatternType.PREFIXED);
+        AccessControlEntry other = ace("abd", AccessControlEntry.ResourcePatternType.PREFIXED);
+        AccessControlEntryTrie trie = new AccessControlEntryTrie(List.of(outer, inner, other));
+
+        Assertions.assertEquals(Set.of(outer, inner), Set.copyOf(trie.findAllMatching("abc.def.topic")));
+        Assertions.assertEquals(List.of(outer), trie.findAllMatching("abc.xyz"));
+        Assertions.assertEquals(List.of(other), trie.findAllMatching("abd.topic"));
+        Assertions.assertEquals(Set.of(outer, inner), Set.copyOf(trie.findAllStartingWith("abc")));
+        Assertions.assertEquals(Set.of(outer, inner, other), Set.copyOf(trie.findAllStartingWith("ab")));
+    }
+
+    @Test
+    void emptyPrefix() {
+        AccessControlEntry all = ace("", AccessControlEntry.ResourcePatternType.PREFIXED);
+        AccessControlEntry literal = ace("abc.topic1", AccessControlEntry.ResourcePatternType.LITERAL);
+        AccessControlEntryTrie trie = new AccessControlEntryTrie(List.of(all, literal));
+
+        Assertions.assertTrue(trie.matches("abc.topic1"));
+        Assertions.assertTrue(trie.matches("xyz"));
+        Assertions.assertTrue(trie.matches(""));
+        Assertions.assertEquals(Set.of(all, literal), Set.copyOf(trie.findAllMatching("abc.topic1")));
+        Assertions.assertEquals(List.of(all), trie.findAllMatching("xyz"));
+
+        trie.remove(all);
+        Assertions.assertFalse(trie.matches("xyz"));
+        Assertions.assertTrue(trie.matches("abc.topic1"));
+    }
+
+    @Test
+    void addAndRemove() {
+        AccessControlEntry outer = ace("abc", AccessControlEntry.ResourcePatternType.PREFIXED);
+        AccessControlEntry inner = ace("abc.def", AccessControlEntry.ResourcePatternType.PREFIXED);
+        AccessControlEntry literal = ace("abc", AccessControlEntry.ResourcePatternType.LITERAL);
+        AccessControlEntryTrie trie = new AccessControlEntryTrie();
+        Assertions.assertFalse(trie.matches("abc.def.topic"));
+
+        trie.add(outer);
+        trie.add(inner);
+        trie.add(literal);
+        Assertions.assertEquals(Set.of(outer, inner), Set.copyOf(trie.findAllMatching("abc.def.topic")));
+        Assertions.assertEquals(Set.of(outer, literal), Set.copyOf(trie.findAllMatching("abc")));
+
+        // removing the outer prefix keeps the entries further down its branch and on its node
+        trie.remove(outer);
+        Assertions.assertEquals(List.of(inner), trie.findAllMatching("abc.def.topic"));
+        Assertions.assertEquals(List.of(literal), trie.findAllMatching("abc"));
+        Assertions.assertFalse(trie.matches("abc.xyz"));
+
+        trie.remove(inner);
+        trie.remove(literal);
+        Assertions.assertFalse(trie.matches("abc.def.topic"));
+        Assertions.assertFalse(trie.matches("abc"));
+        Assertions.assertTrue(trie.findAllStartingWith("").isEmpty());
+
+        // removing an entry never added is a no-op
+        trie.remove(ace("xyz", AccessControlEntry.ResourcePatternType.PREFIXED));
+        trie.add(outer);
+        Assertions.assertTrue(trie.matches("abc.xyz"));
+    }
+}
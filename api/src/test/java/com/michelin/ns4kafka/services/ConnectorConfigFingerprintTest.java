@@ -0,0 +1,53 @@
+package com.michelin.ns4kafka.services;
+
+import com.michelin.ns4kafka.services.connect.ConnectorConfigFingerprint;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ConnectorConfigFingerprintTest {
+
+    @Test
+    void sameFingerprintForEquivalentConfigs() {
+        String expected = ConnectorConfigFingerprint.of(Map.of(
+                "connector.class", "org.apache.kafka.connect.file.FileStreamSinkConnector",
+                "errors.tolerance", "all",
+                "errors.log.enable", "true"), List.of("name"), Set.of());
+        String actual = ConnectorConfigFingerprint.of(Map.of(
+                "name", "connector1",
+                "errors.log.enable", " TRUE",
+                "errors.tolerance", "all ",
+                "connector.class", "org.apache.kafka.connect.file.FileStreamSinkConnector"), List.of("name"), Set.of());
+
+        Assertions.assertEquals(expected, actual);
+    }
+
+    @Test
+    void differentFingerprintForDifferentConfigs() {
+        Map<String, String> config = Map.of("topics", "topic1", "tasks.max", "1");
+
+        String fingerprint = ConnectorConfigFingerprint.of(config, List.of(), Set.of());
+
+        Assertions.assertNotEquals(fingerprint,
+                ConnectorConfigFingerprint.of(Map.of("topics", "topic1", "tasks.max", "2"), List.of(), Set.of()));
+        Assertions.assertNotEquals(fingerprint,
+                ConnectorConfigFingerprint.of(Map.of("topics", "topic1"), List.of(), Set.of()));
+        // the keys and values are delimited, moving characters between them changes the fingerprint
+        Assertions.assertNotEquals(ConnectorConfigFingerprint.of(Map.of("ab", "c"), List.of(), Set.of()),
+                ConnectorConfigFingerprint.of(Map.of("a", "bc"), List.of(), Set.of()));
+    }
+
+    @Test
+    void maskedValuesIgnored() {
+        Map<String, String> actual = Map.of("connection.user", "user", "connection.password", "[hidden]");
+        Set<String> maskedKeys = ConnectorConfigFingerprint.maskedKeys(actual);
+
+        Assertions.assertEquals(Set.of("connection.password"), maskedKeys);
+        Assertions.assertEquals(
+                ConnectorConfigFingerprint.of(Map.of("connection.user", "user", "connection.password", "secret"), List.of(), maskedKeys),
+                ConnectorConfigFingerprint.of(actual, List.of(), maskedKeys));
+    }
+}
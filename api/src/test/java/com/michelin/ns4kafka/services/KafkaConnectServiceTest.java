@@ -6,13 +6,14 @@ import com.michelin.ns4kafka.models.Namespace;
 import com.michelin.ns4kafka.models.Namespace.NamespaceSpec;
 import com.michelin.ns4kafka.models.ObjectMeta;
 import com.michelin.ns4kafka.repositories.ConnectorRepository;
-import com.michelin.ns4kafka.services.connect.KafkaConnectClientProxy;
+import com.michelin.ns4kafka.services.connect.ConnectorPluginCache;
 import com.michelin.ns4kafka.services.connect.client.KafkaConnectClient;
 import com.michelin.ns4kafka.services.connect.client.entities.*;
 import com.michelin.ns4kafka.services.executors.ConnectorAsyncExecutor;
 import com.michelin.ns4kafka.validation.ConnectValidator;
 import com.michelin.ns4kafka.validation.ResourceValidator;
 import io.micronaut.context.ApplicationContext;
+import io.micronaut.http.HttpResponse;
 import io.micronaut.inject.qualifiers.Qualifiers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -23,11 +24,15 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @ExtendWith(MockitoExtension.class)
 public class KafkaConnectServiceTest {
@@ -40,6 +45,8 @@ public class KafkaConnectServiceTest {
     ConnectorRepository connectorRepository;
     @Mock
     ApplicationContext applicationContext;
+    @Mock
+    ConnectorPluginCache connectorPluginCache;
 
     @InjectMocks
     KafkaConnectService kafkaConnectService;
@@ -319,8 +326,8 @@ public class KafkaConnectServiceTest {
                         .connectClusters(List.of("local-name"))
                         .build())
                 .build();
-        Mockito.when(kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name"))
-                .thenReturn(List.of());
+        Mockito.when(connectorPluginCache.findPlugin("local", "local-name", "org.apache.kafka.connect.file.FileStreamSinkConnector"))
+                .thenReturn(Optional.empty());
 
         List<String> actual = kafkaConnectService.validateLocally(ns, connector);
         Assertions.assertEquals(1, actual.size());
@@ -352,8 +359,8 @@ public class KafkaConnectServiceTest {
                         .connectClusters(List.of("local-name"))
                         .build())
                 .build();
-        Mockito.when(kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name"))
-                .thenReturn(List.of(new ConnectorPluginInfo("org.apache.kafka.connect.file.FileStreamSinkConnector", ConnectorType.SINK, "v1")));
+        Mockito.when(connectorPluginCache.findPlugin("local", "local-name", "org.apache.kafka.connect.file.FileStreamSinkConnector"))
+                .thenReturn(Optional.of(new ConnectorPluginInfo("org.apache.kafka.connect.file.FileStreamSinkConnector", ConnectorType.SINK, "v1")));
 
         List<String> actual = kafkaConnectService.validateLocally(ns, connector);
         Assertions.assertEquals(1, actual.size());
@@ -385,8 +392,8 @@ public class KafkaConnectServiceTest {
                         .connectClusters(List.of("local-name"))
                         .build())
                 .build();
-        Mockito.when(kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name"))
-                .thenReturn(List.of(new ConnectorPluginInfo("org.apache.kafka.connect.file.FileStreamSinkConnector", ConnectorType.SINK, "v1")));
+        Mockito.when(connectorPluginCache.findPlugin("local", "local-name", "org.apache.kafka.connect.file.FileStreamSinkConnector"))
+                .thenReturn(Optional.of(new ConnectorPluginInfo("org.apache.kafka.connect.file.FileStreamSinkConnector", ConnectorType.SINK, "v1")));
 
 
         List<String> actual = kafkaConnectService.validateLocally(ns, connector);
@@ -459,6 +466,40 @@ public class KafkaConnectServiceTest {
         Assertions.assertTrue(actual.isEmpty());
     }
 
+    @Test
+    void withStatus() {
+        Namespace ns = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("namespace")
+                        .cluster("local")
+                        .build())
+                .build();
+        ConnectorAsyncExecutor connectorAsyncExecutor = Mockito.mock(ConnectorAsyncExecutor.class);
+        Mockito.when(applicationContext.getBean(ConnectorAsyncExecutor.class,
+                Qualifiers.byName(ns.getMetadata().getCluster()))).thenReturn(connectorAsyncExecutor);
+        Connector.ConnectorStatus stored = Connector.ConnectorStatus.builder().state(Connector.TaskState.UNASSIGNED).build();
+        Connector connector1 = Connector.builder()
+                .metadata(ObjectMeta.builder().name("ns-connect1").build())
+                .spec(Connector.ConnectorSpec.builder().connectCluster("local-name").build())
+                .status(stored)
+                .build();
+        Connector connector2 = Connector.builder()
+                .metadata(ObjectMeta.builder().name("ns-connect2").build())
+                .spec(Connector.ConnectorSpec.builder().connectCluster("local-name").build())
+                .status(stored)
+                .build();
+        Connector.ConnectorStatus running = Connector.ConnectorStatus.builder().state(Connector.TaskState.RUNNING).build();
+        Mockito.when(connectorAsyncExecutor.findConnectorStatus("local-name", "ns-connect1")).thenReturn(Optional.of(running));
+        Mockito.when(connectorAsyncExecutor.findConnectorStatus("local-name", "ns-connect2")).thenReturn(Optional.empty());
+
+        Connector actual = kafkaConnectService.withStatus(ns, connector1);
+        Assertions.assertSame(running, actual.getStatus());
+        Assertions.assertEquals(connector1, actual);
+        // the stored connector is left untouched
+        Assertions.assertSame(stored, connector1.getStatus());
+        Assertions.assertSame(connector2, kafkaConnectService.withStatus(ns, connector2));
+    }
+
     @Test
     void listUnsynchronizedNoExistingConnectors() throws InterruptedException, ExecutionException, TimeoutException {
 
@@ -713,4 +754,43 @@ public class KafkaConnectServiceTest {
 
     }
 
+    @Test
+    void restartTasksInParallel() {
+        Namespace ns = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("namespace")
+                        .cluster("local")
+                        .build())
+                .build();
+        Connector connector = Connector.builder()
+                .metadata(ObjectMeta.builder().name("ns-connect1").build())
+                .spec(Connector.ConnectorSpec.builder().connectCluster("local-name").build())
+                .build();
+        kafkaConnectService.restartParallelism = 3;
+        List<ConnectorStateInfo.TaskState> tasks = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            tasks.add(new ConnectorStateInfo.TaskState(i, "FAILED", "worker1:8083", null));
+        }
+        Mockito.when(kafkaConnectClient.status(ArgumentMatchers.any(), ArgumentMatchers.eq("local"),
+                ArgumentMatchers.eq("local-name"), ArgumentMatchers.eq("ns-connect1")))
+                .thenReturn(new ConnectorStateInfo("ns-connect1", null, tasks, null));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<Integer> restarted = ConcurrentHashMap.newKeySet();
+        Mockito.when(kafkaConnectClient.restart(ArgumentMatchers.any(), ArgumentMatchers.eq("local"),
+                ArgumentMatchers.eq("local-name"), ArgumentMatchers.eq("ns-connect1"), ArgumentMatchers.anyInt()))
+                .thenAnswer(invocation -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    restarted.add(invocation.getArgument(4));
+                    running.decrementAndGet();
+                    return HttpResponse.noContent();
+                });
+
+        kafkaConnectService.restart(ns, connector);
+
+        Assertions.assertEquals(12, restarted.size());
+        Assertions.assertTrue(maxRunning.get() > 1);
+        Assertions.assertTrue(maxRunning.get() <= 3);
+    }
 }
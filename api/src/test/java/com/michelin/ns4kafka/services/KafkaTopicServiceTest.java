@@ -21,6 +21,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 
@@ -502,8 +503,8 @@ public class KafkaTopicServiceTest {
         TopicAsyncExecutor topicAsyncExecutor = Mockito.mock(TopicAsyncExecutor.class);
         Mockito.when(applicationContext.getBean(TopicAsyncExecutor.class, Qualifiers.byName("local")))
                 .thenReturn(topicAsyncExecutor);
-        Mockito.when(topicAsyncExecutor.listBrokerTopicNames())
-                .thenReturn(List.of("project2.topic", "project1.other"));
+        Mockito.when(topicAsyncExecutor.findCollidingBrokerTopics("project1.topic"))
+                .thenReturn(Set.of());
 
         List<String> actual = topicService.findCollidingTopics(ns, topic);
 
@@ -525,8 +526,8 @@ public class KafkaTopicServiceTest {
         TopicAsyncExecutor topicAsyncExecutor = Mockito.mock(TopicAsyncExecutor.class);
         Mockito.when(applicationContext.getBean(TopicAsyncExecutor.class, Qualifiers.byName("local")))
                 .thenReturn(topicAsyncExecutor);
-        Mockito.when(topicAsyncExecutor.listBrokerTopicNames())
-                .thenReturn(List.of("project1.topic", "project2.topic", "project1.other"));
+        Mockito.when(topicAsyncExecutor.findCollidingBrokerTopics("project1.topic"))
+                .thenReturn(Set.of("project1.topic"));
 
         List<String> actual = topicService.findCollidingTopics(ns, topic);
 
@@ -548,8 +549,8 @@ public class KafkaTopicServiceTest {
         TopicAsyncExecutor topicAsyncExecutor = Mockito.mock(TopicAsyncExecutor.class);
         Mockito.when(applicationContext.getBean(TopicAsyncExecutor.class, Qualifiers.byName("local")))
                 .thenReturn(topicAsyncExecutor);
-        Mockito.when(topicAsyncExecutor.listBrokerTopicNames())
-                .thenReturn(List.of("project1_topic"));
+        Mockito.when(topicAsyncExecutor.findCollidingBrokerTopics("project1.topic"))
+                .thenReturn(Set.of("project1_topic"));
 
         List<String> actual = topicService.findCollidingTopics(ns, topic);
 
@@ -557,6 +558,35 @@ public class KafkaTopicServiceTest {
         Assertions.assertLinesMatch(List.of("project1_topic"), actual);
     }
 
+    @Test
+    void testFindCollidingTopics_CollidingNameNotCreatedYet() throws ExecutionException, InterruptedException, TimeoutException {
+        Namespace ns = Namespace.builder()
+                .metadata(ObjectMeta.builder()
+                        .name("namespace")
+                        .cluster("local")
+                        .build())
+                .build();
+        Topic applied = Topic.builder()
+                .metadata(ObjectMeta.builder().name("project1.topic").cluster("local").build())
+                .build();
+        Topic topic = Topic.builder()
+                .metadata(ObjectMeta.builder().name("project1_topic").build())
+                .build();
+
+        // project1.topic was applied right before, the synchronization did not create it yet
+        TopicAsyncExecutor topicAsyncExecutor = Mockito.mock(TopicAsyncExecutor.class);
+        Mockito.when(applicationContext.getBean(TopicAsyncExecutor.class, Qualifiers.byName("local")))
+                .thenReturn(topicAsyncExecutor);
+        Mockito.when(topicAsyncExecutor.findCollidingBrokerTopics("project1_topic"))
+                .thenReturn(Set.of());
+        Mockito.when(topicRepository.findAllCollidingWith("local", "project1_topic"))
+                .thenReturn(List.of(applied));
+
+        List<String> actual = topicService.findCollidingTopics(ns, topic);
+
+        Assertions.assertLinesMatch(List.of("project1.topic"), actual);
+    }
+
     @Test
     void testFindCollidingTopics_InterruptedException() throws ExecutionException, InterruptedException, TimeoutException {
         Namespace ns = Namespace.builder()
@@ -572,7 +602,7 @@ public class KafkaTopicServiceTest {
         TopicAsyncExecutor topicAsyncExecutor = Mockito.mock(TopicAsyncExecutor.class);
         Mockito.when(applicationContext.getBean(TopicAsyncExecutor.class, Qualifiers.byName("local")))
                 .thenReturn(topicAsyncExecutor);
-        Mockito.when(topicAsyncExecutor.listBrokerTopicNames())
+        Mockito.when(topicAsyncExecutor.findCollidingBrokerTopics("project1.topic"))
                 .thenThrow(new InterruptedException());
 
         var actual = Assertions.assertThrows(InterruptedException.class,
@@ -597,7 +627,7 @@ public class KafkaTopicServiceTest {
         TopicAsyncExecutor topicAsyncExecutor = Mockito.mock(TopicAsyncExecutor.class);
         Mockito.when(applicationContext.getBean(TopicAsyncExecutor.class, Qualifiers.byName("local")))
                 .thenReturn(topicAsyncExecutor);
-        Mockito.when(topicAsyncExecutor.listBrokerTopicNames())
+        Mockito.when(topicAsyncExecutor.findCollidingBrokerTopics("project1.topic"))
                 .thenThrow(new RuntimeException("Unknown Error"));
 
         var actual = Assertions.assertThrows(RuntimeException.class,
@@ -0,0 +1,223 @@
+package com.michelin.ns4kafka.services;
+
+import com.michelin.ns4kafka.controllers.ResourceVersionExpiredException;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import com.michelin.ns4kafka.models.WatchEvent;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStore;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStoreEvent;
+import io.micronaut.context.ApplicationContext;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WatchServiceTest {
+    @InjectMocks
+    WatchService watchService;
+
+    @Mock
+    ApplicationContext applicationContext;
+
+    @Mock
+    KafkaStore<Topic> topicStore;
+
+    @BeforeEach
+    void setUp() {
+        watchService.historySize = 2;
+        watchService.scheduler = Schedulers.trampoline();
+    }
+
+    @Test
+    void watchFromCurrentResources() {
+        when(applicationContext.getBeansOfType(KafkaStore.class)).thenReturn(List.of(topicStore));
+        when(topicStore.getValueType()).thenReturn(Topic.class);
+        when(topicStore.getOffset()).thenReturn(41L);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(topicStore).withUpdatesPaused(any());
+        Topic topic1 = buildTopic("ns-topic1", 1);
+
+        TestSubscriber<WatchEvent<Topic>> actual = watchService.watch(Topic.class, null, () -> List.of(topic1),
+                topic -> topic.getMetadata().getName().startsWith("ns-")).test();
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic1", topic1, buildTopic("ns-topic1", 3), 42));
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("other-topic", null, buildTopic("other-topic", 1), 43));
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic1", buildTopic("ns-topic1", 3), null, 44));
+
+        actual.assertNotComplete();
+        actual.assertValueCount(3);
+        Assertions.assertEquals(WatchEvent.WatchEventType.ADDED, actual.values().get(0).getType());
+        Assertions.assertEquals(41L, actual.values().get(0).getResourceVersion());
+        Assertions.assertEquals(WatchEvent.WatchEventType.MODIFIED, actual.values().get(1).getType());
+        Assertions.assertEquals(3, actual.values().get(1).getObject().getSpec().getPartitions());
+        Assertions.assertEquals(WatchEvent.WatchEventType.DELETED, actual.values().get(2).getType());
+        Assertions.assertEquals(44L, actual.values().get(2).getResourceVersion());
+
+        actual.cancel();
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic2", null, buildTopic("ns-topic2", 1), 45));
+        actual.assertValueCount(3);
+    }
+
+    @Test
+    void watchRacingWithUpdate() throws InterruptedException {
+        when(applicationContext.getBeansOfType(KafkaStore.class)).thenReturn(List.of(topicStore));
+        when(topicStore.getValueType()).thenReturn(Topic.class);
+        when(topicStore.getOffset()).thenReturn(41L);
+        // the store reader applies and publishes an update holding the write lock, the watch pauses it with the read lock
+        ReentrantReadWriteLock updateLock = new ReentrantReadWriteLock();
+        doAnswer(invocation -> {
+            updateLock.readLock().lock();
+            try {
+                invocation.<Runnable>getArgument(0).run();
+            } finally {
+                updateLock.readLock().unlock();
+            }
+            return null;
+        }).when(topicStore).withUpdatesPaused(any());
+        AtomicReference<Topic> stored = new AtomicReference<>(buildTopic("ns-topic1", 1));
+        CountDownLatch listing = new CountDownLatch(1);
+        Thread storeReader = new Thread(() -> {
+            try {
+                listing.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            updateLock.writeLock().lock();
+            try {
+                Topic oldTopic = stored.getAndSet(buildTopic("ns-topic1", 3));
+                watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic1", oldTopic, stored.get(), 42));
+            } finally {
+                updateLock.writeLock().unlock();
+            }
+        });
+        storeReader.start();
+
+        // the update comes in while the current resources are listed
+        TestSubscriber<WatchEvent<Topic>> actual = watchService.watch(Topic.class, null, () -> {
+            listing.countDown();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(stored.get());
+        }, topic -> true).test();
+        storeReader.join();
+
+        // listed before the update, then sent once with its own resource version
+        actual.assertValueCount(2);
+        Assertions.assertEquals(WatchEvent.WatchEventType.ADDED, actual.values().get(0).getType());
+        Assertions.assertEquals(1, actual.values().get(0).getObject().getSpec().getPartitions());
+        Assertions.assertEquals(41L, actual.values().get(0).getResourceVersion());
+        Assertions.assertEquals(WatchEvent.WatchEventType.MODIFIED, actual.values().get(1).getType());
+        Assertions.assertEquals(3, actual.values().get(1).getObject().getSpec().getPartitions());
+        Assertions.assertEquals(42L, actual.values().get(1).getResourceVersion());
+    }
+
+    @Test
+    void watchFromResourceVersion() {
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic1", null, buildTopic("ns-topic1", 1), 10));
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic2", null, buildTopic("ns-topic2", 1), 11));
+
+        TestSubscriber<WatchEvent<Topic>> actual = watchService.watch(Topic.class, 10L, List::of, topic -> true).test();
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic3", null, buildTopic("ns-topic3", 1), 12));
+
+        actual.assertValueCount(2);
+        Assertions.assertEquals("ns-topic2", actual.values().get(0).getObject().getMetadata().getName());
+        Assertions.assertEquals(11L, actual.values().get(0).getResourceVersion());
+        Assertions.assertEquals("ns-topic3", actual.values().get(1).getObject().getMetadata().getName());
+    }
+
+    @Test
+    void watchFromExpiredResourceVersion() {
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic1", null, buildTopic("ns-topic1", 1), 10));
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic2", null, buildTopic("ns-topic2", 1), 11));
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic3", null, buildTopic("ns-topic3", 1), 12));
+
+        // the update at offset 10 is not retained anymore, resuming from 9 would miss it
+        Assertions.assertThrows(ResourceVersionExpiredException.class,
+                () -> watchService.watch(Topic.class, 9L, List::of, topic -> true));
+        watchService.watch(Topic.class, 10L, List::of, topic -> true).test().assertValueCount(2);
+    }
+
+    @Test
+    void watchAfterReset() {
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic1", null, buildTopic("ns-topic1", 1), 10));
+        TestSubscriber<WatchEvent<Topic>> actual = watchService.watch(Topic.class, 10L, List::of, topic -> true).test();
+
+        // the store topic was recreated, its offsets start over
+        watchService.onApplicationEvent(KafkaStoreEvent.reset(Topic.class, -1L));
+        actual.assertError(ResourceVersionExpiredException.class);
+
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic2", null, buildTopic("ns-topic2", 1), 0));
+        TestSubscriber<WatchEvent<Topic>> resumed = watchService.watch(Topic.class, -1L, List::of, topic -> true).test();
+        resumed.assertValueCount(1);
+        Assertions.assertEquals("ns-topic2", resumed.values().get(0).getObject().getMetadata().getName());
+    }
+
+    @Test
+    void slowWatcherIsDropped() {
+        watchService.bufferSize = 2;
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic0", null, buildTopic("ns-topic0", 1), 10));
+        // the client doesn't read the events
+        TestSubscriber<WatchEvent<Topic>> actual = watchService.watch(Topic.class, 10L, List::of, topic -> true).test(0);
+
+        for (int i = 1; i <= Flowable.bufferSize() + 3; i++) {
+            watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic" + i, null, buildTopic("ns-topic" + i, 1), 10 + i));
+        }
+
+        actual.assertError(ResourceVersionExpiredException.class);
+        actual.assertNoValues();
+        // the watcher is not fed anymore
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic", null, buildTopic("ns-topic", 1), 1000));
+        actual.assertValueCount(0);
+    }
+
+    @Test
+    void filterRunsOnScheduler() {
+        TestScheduler scheduler = new TestScheduler();
+        watchService.scheduler = scheduler;
+        List<String> filtered = new ArrayList<>();
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic0", null, buildTopic("ns-topic0", 1), 10));
+        TestSubscriber<WatchEvent<Topic>> actual = watchService.watch(Topic.class, 10L, List::of, topic -> {
+            filtered.add(topic.getMetadata().getName());
+            return true;
+        }).test();
+
+        // the store reader only queues the update
+        watchService.onApplicationEvent(new KafkaStoreEvent<>("ns-topic1", null, buildTopic("ns-topic1", 1), 11));
+        Assertions.assertTrue(filtered.isEmpty());
+        actual.assertNoValues();
+
+        scheduler.triggerActions();
+        Assertions.assertEquals(List.of("ns-topic1"), filtered);
+        actual.assertValueCount(1);
+    }
+
+    private Topic buildTopic(String name, int partitions) {
+        return Topic.builder()
+                .metadata(ObjectMeta.builder().name(name).cluster("local").build())
+                .spec(Topic.TopicSpec.builder().partitions(partitions).build())
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.michelin.ns4kafka.services.connect;
+
+import com.michelin.ns4kafka.services.connect.client.KafkaConnectClient;
+import com.michelin.ns4kafka.services.connect.client.entities.ConnectorPluginInfo;
+import com.michelin.ns4kafka.services.connect.client.entities.ConnectorType;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.client.exceptions.ReadTimeoutException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectorPluginCacheTest {
+    private static final String FILE_SINK = "org.apache.kafka.connect.file.FileStreamSinkConnector";
+    private static final String JDBC_SINK = "io.confluent.connect.jdbc.JdbcSinkConnector";
+
+    @Mock
+    KafkaConnectClient kafkaConnectClient;
+
+    @InjectMocks
+    ConnectorPluginCache connectorPluginCache;
+
+    @Test
+    void pluginsLoadedOncePerConnectCluster() {
+        when(kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name"))
+                .thenReturn(List.of(new ConnectorPluginInfo(FILE_SINK, ConnectorType.SINK, "v1")));
+        when(kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "other-name"))
+                .thenReturn(List.of());
+
+        Assertions.assertEquals(ConnectorType.SINK,
+                connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).orElseThrow().type());
+        Assertions.assertTrue(connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).isPresent());
+        // a missing plugin doesn't reload a recent catalogue
+        Assertions.assertTrue(connectorPluginCache.findPlugin("local", "local-name", JDBC_SINK).isEmpty());
+        Assertions.assertTrue(connectorPluginCache.findPlugin("local", "other-name", FILE_SINK).isEmpty());
+
+        verify(kafkaConnectClient, times(1)).connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name");
+        verify(kafkaConnectClient, times(1)).connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "other-name");
+    }
+
+    @Test
+    void expiredPluginsReloadedInBackground() throws InterruptedException {
+        connectorPluginCache.ttl = Duration.ofMillis(1);
+        when(kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name"))
+                .thenReturn(List.of(new ConnectorPluginInfo(FILE_SINK, ConnectorType.SINK, "v1")))
+                .thenReturn(List.of(new ConnectorPluginInfo(FILE_SINK, ConnectorType.SINK, "v2")));
+
+        Assertions.assertEquals("v1", connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).orElseThrow().version());
+        Thread.sleep(5);
+        // the expired catalogue is served while it is reloaded
+        Assertions.assertEquals("v1", connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).orElseThrow().version());
+
+        verify(kafkaConnectClient, timeout(1000).times(2)).connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name");
+        connectorPluginCache.ttl = Duration.ofMinutes(5);
+        Thread.sleep(50);
+        Assertions.assertEquals("v2", connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).orElseThrow().version());
+    }
+
+    @Test
+    void failingReloadServesCachedPlugins() throws InterruptedException {
+        connectorPluginCache.ttl = Duration.ofMillis(1);
+        when(kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name"))
+                .thenReturn(List.of(new ConnectorPluginInfo(FILE_SINK, ConnectorType.SINK, "v1")))
+                .thenThrow(new HttpClientResponseException("Service Unavailable", HttpResponse.serverError()));
+
+        Assertions.assertEquals("v1", connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).orElseThrow().version());
+        Thread.sleep(5);
+        Assertions.assertEquals("v1", connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).orElseThrow().version());
+
+        // the catalogue is kept after the reload failed
+        verify(kafkaConnectClient, timeout(1000).times(2)).connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name");
+        connectorPluginCache.ttl = Duration.ofMinutes(5);
+        Thread.sleep(50);
+        Assertions.assertEquals("v1", connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).orElseThrow().version());
+    }
+
+    @Test
+    void firstLoadTimeout() {
+        connectorPluginCache.loadTimeout = Duration.ofMillis(50);
+        when(kafkaConnectClient.connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name"))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(500);
+                    return List.of(new ConnectorPluginInfo(FILE_SINK, ConnectorType.SINK, "v1"));
+                });
+
+        Assertions.assertThrows(ReadTimeoutException.class,
+                () -> connectorPluginCache.findPlugin("local", "local-name", FILE_SINK));
+        // the load goes on, the next apply gets its result
+        connectorPluginCache.loadTimeout = Duration.ofSeconds(5);
+        Assertions.assertTrue(connectorPluginCache.findPlugin("local", "local-name", FILE_SINK).isPresent());
+        verify(kafkaConnectClient, times(1)).connectPlugins(KafkaConnectClientProxy.PROXY_SECRET, "local", "local-name");
+    }
+}
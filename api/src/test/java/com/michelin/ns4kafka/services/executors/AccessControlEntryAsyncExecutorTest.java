@@ -0,0 +1,185 @@
+package com.michelin.ns4kafka.services.executors;
+
+import com.michelin.ns4kafka.models.Namespace;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.repositories.NamespaceRepository;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStoreEvent;
+import com.michelin.ns4kafka.services.AccessControlEntryService;
+import com.michelin.ns4kafka.services.StreamService;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.CreateAclsResult;
+import org.apache.kafka.clients.admin.DeleteAclsResult;
+import org.apache.kafka.clients.admin.DescribeAclsResult;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.acl.*;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.apache.kafka.common.resource.PatternType;
+import org.apache.kafka.common.resource.ResourcePattern;
+import org.apache.kafka.common.resource.ResourceType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccessControlEntryAsyncExecutorTest {
+    @Mock
+    KafkaAsyncExecutorConfig kafkaAsyncExecutorConfig;
+
+    @Mock
+    Admin adminClient;
+
+    @Mock
+    NamespaceRepository namespaceRepository;
+
+    @Mock
+    AccessControlEntryService accessControlEntryService;
+
+    @Mock
+    StreamService streamService;
+
+    @Test
+    void diffManagedBindings() {
+        AclBinding kept = buildBinding(ResourceType.TOPIC, "ns1-", "User:user1");
+        AclBinding deleted = buildBinding(ResourceType.GROUP, "ns1-", "User:user1");
+        AclBinding unmanagedUser = buildBinding(ResourceType.TOPIC, "other-", "User:other");
+        AclBinding unmanagedType = buildBinding(ResourceType.CLUSTER, "kafka-cluster", "User:user1");
+        AclBinding created = buildBinding(ResourceType.TOPIC, "ns1-new-", "User:user1");
+
+        List<AclBinding> brokerBindings = AccessControlEntryAsyncExecutor.filterManagedPrincipals(
+                AccessControlEntryAsyncExecutor.filterManagedResourceTypes(List.of(kept, deleted, unmanagedUser, unmanagedType)),
+                Set.of("User:user1"));
+        // the same binding can be granted twice, it is created once
+        Reconciler.Diff<AclBinding, AclBinding, AclBinding> actual = AccessControlEntryAsyncExecutor.ACL_RECONCILER
+                .diff(List.of(kept, created, created), brokerBindings);
+
+        Assertions.assertEquals(List.of(kept, deleted), brokerBindings);
+        Assertions.assertEquals(List.of(created), actual.getToCreate());
+        Assertions.assertEquals(List.of(deleted), actual.getToDelete());
+        Assertions.assertTrue(actual.getToUpdate().isEmpty());
+    }
+
+    @Test
+    void describeAclsByPrincipal() {
+        AccessControlEntryAsyncExecutor executor = new AccessControlEntryAsyncExecutor(kafkaAsyncExecutorConfig);
+        executor.namespaceRepository = namespaceRepository;
+        executor.accessControlEntryService = accessControlEntryService;
+        executor.streamService = streamService;
+        executor.describeParallelism = 1;
+        when(kafkaAsyncExecutorConfig.isManageAcls()).thenReturn(true);
+        when(kafkaAsyncExecutorConfig.getName()).thenReturn("local");
+        when(kafkaAsyncExecutorConfig.getAdminClient()).thenReturn(adminClient);
+        when(kafkaAsyncExecutorConfig.getAclDescribeScope()).thenReturn(KafkaAsyncExecutorConfig.AclDescribeScope.PRINCIPAL);
+
+        Namespace ns1 = buildNamespace("ns1", "user1");
+        Namespace ns2 = buildNamespace("ns2", "user2");
+        when(namespaceRepository.findAllForCluster("local")).thenReturn(List.of(ns1, ns2));
+        when(accessControlEntryService.findAllGrantedToNamespace(ns1)).thenReturn(List.of(buildAccessControlEntry("ns1-")));
+        when(accessControlEntryService.findAllGrantedToNamespace(ns2)).thenReturn(List.of(buildAccessControlEntry("ns2-")));
+
+        AclBinding stale = buildBinding(ResourceType.TOPIC, "old-", "User:user1");
+        when(adminClient.describeAcls(any())).thenAnswer(invocation -> {
+            AclBindingFilter filter = invocation.getArgument(0);
+            DescribeAclsResult result = Mockito.mock(DescribeAclsResult.class);
+            if (filter.entryFilter().principal().equals("User:user1")) {
+                when(result.values()).thenReturn(KafkaFuture.completedFuture(List.of(stale)));
+            } else {
+                KafkaFutureImpl<Collection<AclBinding>> failure = new KafkaFutureImpl<>();
+                failure.completeExceptionally(new TimeoutException("Timed out waiting for a node assignment"));
+                when(result.values()).thenReturn(failure);
+            }
+            return result;
+        });
+        CreateAclsResult createAclsResult = Mockito.mock(CreateAclsResult.class);
+        when(createAclsResult.values()).thenReturn(Map.of());
+        when(adminClient.createAcls(any())).thenReturn(createAclsResult);
+        DeleteAclsResult deleteAclsResult = Mockito.mock(DeleteAclsResult.class);
+        when(deleteAclsResult.values()).thenReturn(Map.of());
+        when(adminClient.deleteAcls(any())).thenReturn(deleteAclsResult);
+
+        executor.run();
+
+        verify(adminClient, times(2)).describeAcls(any());
+        verify(adminClient, never()).describeAcls(AclBindingFilter.ANY);
+        // the ACLs of user2 could not be described, they are not touched
+        verify(adminClient).createAcls(List.of(buildBinding(ResourceType.TOPIC, "ns1-", "User:user1")));
+        verify(adminClient).deleteAcls(List.of(stale.toFilter()));
+    }
+
+    @Test
+    void desiredAclsMemoizedPerNamespace() {
+        AccessControlEntryAsyncExecutor executor = new AccessControlEntryAsyncExecutor(kafkaAsyncExecutorConfig);
+        executor.namespaceRepository = namespaceRepository;
+        executor.accessControlEntryService = accessControlEntryService;
+        executor.streamService = streamService;
+        when(kafkaAsyncExecutorConfig.isManageAcls()).thenReturn(true);
+        when(kafkaAsyncExecutorConfig.getName()).thenReturn("local");
+        when(kafkaAsyncExecutorConfig.getAdminClient()).thenReturn(adminClient);
+        when(kafkaAsyncExecutorConfig.getAclDescribeScope()).thenReturn(KafkaAsyncExecutorConfig.AclDescribeScope.CLUSTER);
+
+        Namespace ns1 = buildNamespace("ns1", "user1");
+        Namespace ns2 = buildNamespace("ns2", "user2");
+        when(namespaceRepository.findAllForCluster("local")).thenReturn(List.of(ns1, ns2));
+        com.michelin.ns4kafka.models.AccessControlEntry ace1 = buildAccessControlEntry("ns1-");
+        when(accessControlEntryService.findAllGrantedToNamespace(ns1)).thenReturn(List.of(ace1));
+        when(accessControlEntryService.findAllGrantedToNamespace(ns2)).thenReturn(List.of(buildAccessControlEntry("ns2-")));
+        DescribeAclsResult describeAclsResult = Mockito.mock(DescribeAclsResult.class);
+        when(describeAclsResult.values()).thenReturn(KafkaFuture.completedFuture(List.of(
+                buildBinding(ResourceType.TOPIC, "ns1-", "User:user1"),
+                buildBinding(ResourceType.TOPIC, "ns2-", "User:user2"))));
+        when(adminClient.describeAcls(AclBindingFilter.ANY)).thenReturn(describeAclsResult);
+        CreateAclsResult createAclsResult = Mockito.mock(CreateAclsResult.class);
+        when(createAclsResult.values()).thenReturn(Map.of());
+        when(adminClient.createAcls(any())).thenReturn(createAclsResult);
+        DeleteAclsResult deleteAclsResult = Mockito.mock(DeleteAclsResult.class);
+        when(deleteAclsResult.values()).thenReturn(Map.of());
+        when(adminClient.deleteAcls(any())).thenReturn(deleteAclsResult);
+
+        executor.run();
+        executor.run();
+        // an ACE granted to ns1 changed
+        ace1.getSpec().setGrantedTo("ns1");
+        Assertions.assertTrue(executor.supports(new KafkaStoreEvent<>("local/ace1", null, ace1, 10)));
+        executor.onApplicationEvent(new KafkaStoreEvent<>("local/ace1", null, ace1, 10));
+        executor.run();
+
+        verify(accessControlEntryService, times(2)).findAllGrantedToNamespace(ns1);
+        verify(accessControlEntryService, times(1)).findAllGrantedToNamespace(ns2);
+        verify(streamService, times(1)).findAllForNamespace(ns2);
+        verify(adminClient, times(3)).createAcls(List.of());
+        verify(adminClient, times(3)).deleteAcls(List.of());
+    }
+
+    private Namespace buildNamespace(String name, String kafkaUser) {
+        return Namespace.builder()
+                .metadata(ObjectMeta.builder().name(name).cluster("local").build())
+                .spec(Namespace.NamespaceSpec.builder().kafkaUser(kafkaUser).build())
+                .build();
+    }
+
+    private com.michelin.ns4kafka.models.AccessControlEntry buildAccessControlEntry(String prefix) {
+        return com.michelin.ns4kafka.models.AccessControlEntry.builder()
+                .spec(com.michelin.ns4kafka.models.AccessControlEntry.AccessControlEntrySpec.builder()
+                        .resourceType(com.michelin.ns4kafka.models.AccessControlEntry.ResourceType.TOPIC)
+                        .resource(prefix)
+                        .resourcePatternType(com.michelin.ns4kafka.models.AccessControlEntry.ResourcePatternType.PREFIXED)
+                        .permission(com.michelin.ns4kafka.models.AccessControlEntry.Permission.READ)
+                        .build())
+                .build();
+    }
+
+    private AclBinding buildBinding(ResourceType resourceType, String resource, String principal) {
+        return new AclBinding(new ResourcePattern(resourceType, resource, PatternType.PREFIXED),
+                new AccessControlEntry(principal, "*", AclOperation.READ, AclPermissionType.ALLOW));
+    }
+}
@@ -0,0 +1,52 @@
+package com.michelin.ns4kafka.services.executors;
+
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class BrokerTopicCacheTest {
+    @Test
+    void findCollidingTopicNames() {
+        BrokerTopicCache cache = new BrokerTopicCache();
+        cache.replace(Map.of("project1.topic", buildTopic("project1.topic"), "project2.topic", buildTopic("project2.topic")),
+                List.of("project1.topic", "project2.topic"));
+
+        Assertions.assertEquals(Set.of("project1.topic"), cache.findCollidingTopicNames("project1_topic"));
+        Assertions.assertEquals(Set.of("project1.topic"), cache.findCollidingTopicNames("project1.topic"));
+        Assertions.assertTrue(cache.findCollidingTopicNames("project1.other").isEmpty());
+
+        cache.putAll(List.of(buildTopic("project1_topic")));
+        Assertions.assertEquals(Set.of("project1.topic", "project1_topic"), cache.findCollidingTopicNames("project1.topic"));
+
+        cache.remove("project1.topic");
+        Assertions.assertEquals(Set.of("project1_topic"), cache.findCollidingTopicNames("project1.topic"));
+        cache.remove("project1_topic");
+        Assertions.assertTrue(cache.findCollidingTopicNames("project1.topic").isEmpty());
+    }
+
+    @Test
+    void replaceKeepsUndescribedTopics() {
+        BrokerTopicCache cache = new BrokerTopicCache();
+        Assertions.assertTrue(cache.isOlderThan(Duration.ofMinutes(1)));
+        cache.replace(Map.of("topic1", buildTopic("topic1"), "topic2", buildTopic("topic2")), List.of("topic1", "topic2"));
+
+        // topic2 could not be described, topic1 was deleted
+        cache.replace(Map.of("topic3", buildTopic("topic3")), List.of("topic2", "topic3"));
+
+        Assertions.assertEquals(Set.of("topic2", "topic3"), cache.getTopics().keySet());
+        Assertions.assertFalse(cache.isOlderThan(Duration.ofMinutes(1)));
+    }
+
+    private Topic buildTopic(String name) {
+        return Topic.builder()
+                .metadata(ObjectMeta.builder().name(name).cluster("local").build())
+                .spec(Topic.TopicSpec.builder().partitions(1).replicationFactor(1).build())
+                .build();
+    }
+}
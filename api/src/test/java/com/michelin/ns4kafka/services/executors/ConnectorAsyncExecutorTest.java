@@ -0,0 +1,208 @@
+package com.michelin.ns4kafka.services.executors;
+
+import com.michelin.ns4kafka.models.Connector;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.repositories.ConnectorRepository;
+import com.michelin.ns4kafka.services.connect.client.KafkaConnectClient;
+import com.michelin.ns4kafka.services.connect.client.entities.ConnectorInfo;
+import com.michelin.ns4kafka.services.connect.client.entities.ConnectorStateInfo;
+import com.michelin.ns4kafka.services.connect.client.entities.ConnectorStatus;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.reactivex.Flowable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectorAsyncExecutorTest {
+    @Mock
+    KafkaAsyncExecutorConfig kafkaAsyncExecutorConfig;
+
+    @Mock
+    ConnectorRepository connectorRepository;
+
+    @Mock
+    KafkaConnectClient kafkaConnectClient;
+
+    @Test
+    void deployConnectorsConcurrently() {
+        ConnectorAsyncExecutor executor = new ConnectorAsyncExecutor(kafkaAsyncExecutorConfig);
+        executor.connectorRepository = connectorRepository;
+        executor.kafkaConnectClient = kafkaConnectClient;
+        executor.deployConcurrency = 2;
+        executor.deployRate = 1000;
+        executor.deployBurst = 10;
+        when(kafkaAsyncExecutorConfig.isManageConnectors()).thenReturn(true);
+        when(kafkaAsyncExecutorConfig.getName()).thenReturn("local");
+        when(kafkaAsyncExecutorConfig.getConnects()).thenReturn(Map.of(
+                "connect1", new KafkaAsyncExecutorConfig.ConnectConfig(),
+                "connect2", new KafkaAsyncExecutorConfig.ConnectConfig()));
+
+        List<Connector> connectors = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            connectors.add(buildConnector("connector" + i, "connect1"));
+        }
+        connectors.add(buildConnector("other", "connect2"));
+        when(connectorRepository.findAllForCluster("local")).thenReturn(connectors);
+        when(kafkaConnectClient.listAll(any(), eq("local"), eq("connect1"))).thenReturn(Map.of());
+        // a failing Connect cluster doesn't prevent the deployments on the others
+        when(kafkaConnectClient.listAll(any(), eq("local"), eq("connect2")))
+                .thenThrow(new HttpClientResponseException("Service Unavailable", HttpResponse.serverError()));
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(kafkaConnectClient.createOrUpdateAsync(any(), eq("local"), eq("connect1"), any(), any()))
+                .thenAnswer(invocation -> Flowable.timer(20, TimeUnit.MILLISECONDS)
+                        .doOnSubscribe(subscription -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+                        .map(tick -> new ConnectorInfo(invocation.getArgument(3), Map.of(), List.of(), null))
+                        .doOnTerminate(running::decrementAndGet));
+
+        executor.run();
+
+        verify(kafkaConnectClient, times(6)).createOrUpdateAsync(any(), eq("local"), eq("connect1"), any(), any());
+        Assertions.assertEquals(2, maxRunning.get());
+        Assertions.assertEquals(0, running.get());
+    }
+
+    @Test
+    void redeployOnlyRealConfigChanges() {
+        ConnectorAsyncExecutor executor = new ConnectorAsyncExecutor(kafkaAsyncExecutorConfig);
+        executor.connectorRepository = connectorRepository;
+        executor.kafkaConnectClient = kafkaConnectClient;
+        executor.deployConcurrency = 1;
+        executor.deployRate = 1000;
+        executor.deployBurst = 10;
+        when(kafkaAsyncExecutorConfig.isManageConnectors()).thenReturn(true);
+        when(kafkaAsyncExecutorConfig.getName()).thenReturn("local");
+        when(kafkaAsyncExecutorConfig.getConnects()).thenReturn(Map.of("connect1", new KafkaAsyncExecutorConfig.ConnectConfig()));
+
+        Connector connector = buildConnector("connector1", "connect1");
+        connector.getSpec().setConfig(Map.of(
+                "connector.class", "io.confluent.connect.jdbc.JdbcSinkConnector",
+                "connection.password", "secret",
+                "auto.create", "TRUE"));
+        when(connectorRepository.findAllForCluster("local")).thenReturn(List.of(connector));
+        // Connect adds the name, masks the password and normalizes the boolean
+        ConnectorStatus connectorStatus = new ConnectorStatus();
+        connectorStatus.setInfo(new ConnectorInfo("connector1", Map.of(
+                "name", "connector1",
+                "connector.class", "io.confluent.connect.jdbc.JdbcSinkConnector",
+                "connection.password", "[hidden]",
+                "auto.create", "true"), List.of(), null));
+        when(kafkaConnectClient.listAll(any(), eq("local"), eq("connect1"))).thenReturn(Map.of("connector1", connectorStatus));
+
+        executor.run();
+        verify(kafkaConnectClient, never()).createOrUpdateAsync(any(), any(), any(), any(), any());
+
+        // a new password is deployed although Connect returns it masked
+        connector.getSpec().setConfig(Map.of(
+                "connector.class", "io.confluent.connect.jdbc.JdbcSinkConnector",
+                "connection.password", "new-secret",
+                "auto.create", "TRUE"));
+        when(kafkaConnectClient.createOrUpdateAsync(any(), eq("local"), eq("connect1"), eq("connector1"), any()))
+                .thenReturn(Flowable.just(new ConnectorInfo("connector1", Map.of(), List.of(), null)));
+
+        executor.run();
+        executor.run();
+        verify(kafkaConnectClient, times(1)).createOrUpdateAsync(any(), eq("local"), eq("connect1"), eq("connector1"), any());
+    }
+
+    @Test
+    void redeployOnlyRealConfigChangesPerConnectCluster() {
+        ConnectorAsyncExecutor executor = new ConnectorAsyncExecutor(kafkaAsyncExecutorConfig);
+        executor.connectorRepository = connectorRepository;
+        executor.kafkaConnectClient = kafkaConnectClient;
+        executor.deployConcurrency = 1;
+        executor.deployRate = 1000;
+        executor.deployBurst = 10;
+        when(kafkaAsyncExecutorConfig.isManageConnectors()).thenReturn(true);
+        when(kafkaAsyncExecutorConfig.getName()).thenReturn("local");
+        when(kafkaAsyncExecutorConfig.getConnects()).thenReturn(Map.of(
+                "connect1", new KafkaAsyncExecutorConfig.ConnectConfig(),
+                "connect2", new KafkaAsyncExecutorConfig.ConnectConfig()));
+
+        // a connector with the same name but another password on each Connect cluster
+        Connector connector1 = buildConnector("connector1", "connect1");
+        connector1.getSpec().setConfig(Map.of(
+                "connector.class", "io.confluent.connect.jdbc.JdbcSinkConnector",
+                "connection.password", "secret1"));
+        Connector connector2 = buildConnector("connector1", "connect2");
+        connector2.getSpec().setConfig(Map.of(
+                "connector.class", "io.confluent.connect.jdbc.JdbcSinkConnector",
+                "connection.password", "secret2"));
+        when(connectorRepository.findAllForCluster("local")).thenReturn(List.of(connector1, connector2));
+        ConnectorStatus connectorStatus = new ConnectorStatus();
+        connectorStatus.setInfo(new ConnectorInfo("connector1", Map.of(
+                "connector.class", "io.confluent.connect.jdbc.JdbcSinkConnector",
+                "connection.password", "[hidden]"), List.of(), null));
+        when(kafkaConnectClient.listAll(any(), eq("local"), any())).thenReturn(Map.of("connector1", connectorStatus));
+
+        executor.run();
+        executor.run();
+        verify(kafkaConnectClient, never()).createOrUpdateAsync(any(), any(), any(), any(), any());
+
+        // only the connector of connect1 is redeployed
+        connector1.getSpec().setConfig(Map.of(
+                "connector.class", "io.confluent.connect.jdbc.JdbcSinkConnector",
+                "connection.password", "new-secret1"));
+        when(kafkaConnectClient.createOrUpdateAsync(any(), eq("local"), eq("connect1"), eq("connector1"), any()))
+                .thenReturn(Flowable.just(new ConnectorInfo("connector1", Map.of(), List.of(), null)));
+
+        executor.run();
+        executor.run();
+        verify(kafkaConnectClient, times(1)).createOrUpdateAsync(any(), eq("local"), eq("connect1"), eq("connector1"), any());
+        verify(kafkaConnectClient, never()).createOrUpdateAsync(any(), eq("local"), eq("connect2"), any(), any());
+    }
+
+    @Test
+    void connectorStatusesCached() {
+        ConnectorAsyncExecutor executor = new ConnectorAsyncExecutor(kafkaAsyncExecutorConfig);
+        executor.kafkaConnectClient = kafkaConnectClient;
+        when(kafkaAsyncExecutorConfig.getName()).thenReturn("local");
+        ConnectorStatus connectorStatus = new ConnectorStatus();
+        connectorStatus.setInfo(new ConnectorInfo("connector1", Map.of("name", "connector1"), List.of(), null));
+        connectorStatus.setStatus(new ConnectorStateInfo("connector1",
+                new ConnectorStateInfo.ConnectorState("RUNNING", "worker1:8083", null),
+                List.of(new ConnectorStateInfo.TaskState(0, "FAILED", "worker2:8083", "java.lang.NullPointerException")),
+                null));
+        when(kafkaConnectClient.listAll(any(), eq("local"), eq("connect1"))).thenReturn(Map.of("connector1", connectorStatus));
+
+        Assertions.assertTrue(executor.findConnectorStatus("connect1", "connector1").isEmpty());
+        executor.collectBrokerConnectors("connect1");
+
+        Connector.ConnectorStatus status = executor.findConnectorStatus("connect1", "connector1").orElseThrow();
+        Assertions.assertEquals(Connector.TaskState.RUNNING, status.getState());
+        Assertions.assertEquals("worker1:8083", status.getWorker_id());
+        Assertions.assertEquals("0", status.getTasks().get(0).getId());
+        Assertions.assertEquals(Connector.TaskState.FAILED, status.getTasks().get(0).getState());
+        Assertions.assertEquals("java.lang.NullPointerException", status.getTasks().get(0).getTrace());
+        Assertions.assertNotNull(status.getLastUpdateTime());
+        Assertions.assertTrue(executor.findConnectorStatus("connect2", "connector1").isEmpty());
+
+        // not served past the freshness bound
+        executor.statusMaxStaleness = Duration.ofMinutes(-1);
+        Assertions.assertTrue(executor.findConnectorStatus("connect1", "connector1").isEmpty());
+    }
+
+    private Connector buildConnector(String name, String connectCluster) {
+        return Connector.builder()
+                .metadata(ObjectMeta.builder().name(name).cluster("local").build())
+                .spec(Connector.ConnectorSpec.builder()
+                        .connectCluster(connectCluster)
+                        .config(Map.of("connector.class", "org.apache.kafka.connect.file.FileStreamSinkConnector"))
+                        .build())
+                .build();
+    }
+}
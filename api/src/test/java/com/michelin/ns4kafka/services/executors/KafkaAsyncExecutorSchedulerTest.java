@@ -0,0 +1,142 @@
+package com.michelin.ns4kafka.services.executors;
+
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import com.michelin.ns4kafka.repositories.kafka.KafkaStoreEvent;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class KafkaAsyncExecutorSchedulerTest {
+    @Mock
+    ApplicationContext applicationContext;
+
+    KafkaAsyncExecutorScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new KafkaAsyncExecutorScheduler();
+        scheduler.applicationContext = applicationContext;
+        scheduler.reconciliationExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.reconciliationExecutor.shutdownNow();
+    }
+
+    @Test
+    void failingStepDoesNotStopCluster() throws InterruptedException {
+        TopicAsyncExecutor topicAsyncExecutor = mockExecutor(TopicAsyncExecutor.class, "cluster1");
+        AccessControlEntryAsyncExecutor accessControlEntryAsyncExecutor = mockExecutor(AccessControlEntryAsyncExecutor.class, "cluster1");
+        ConnectorAsyncExecutor connectorAsyncExecutor = mockExecutor(ConnectorAsyncExecutor.class, "cluster1");
+        UserAsyncExecutor userAsyncExecutor = mockExecutor(UserAsyncExecutor.class, "cluster1");
+        doThrow(new IllegalStateException("broker down")).when(topicAsyncExecutor).run();
+
+        scheduler.submit("cluster1");
+        awaitCycles();
+
+        verify(accessControlEntryAsyncExecutor).run();
+        verify(connectorAsyncExecutor).run();
+        verify(userAsyncExecutor).run();
+        Assertions.assertTrue(scheduler.getCycleDurations().containsKey("cluster1"));
+    }
+
+    @Test
+    void slowClusterIsNotReconciledTwice() throws InterruptedException {
+        CountDownLatch slowCycle = new CountDownLatch(1);
+        TopicAsyncExecutor slowTopicAsyncExecutor = mockExecutor(TopicAsyncExecutor.class, "slow");
+        doAnswer(invocation -> slowCycle.await(10, TimeUnit.SECONDS)).when(slowTopicAsyncExecutor).run();
+        mockExecutor(AccessControlEntryAsyncExecutor.class, "slow");
+        mockExecutor(ConnectorAsyncExecutor.class, "slow");
+        mockExecutor(UserAsyncExecutor.class, "slow");
+        TopicAsyncExecutor fastTopicAsyncExecutor = mockExecutor(TopicAsyncExecutor.class, "fast");
+        mockExecutor(AccessControlEntryAsyncExecutor.class, "fast");
+        mockExecutor(ConnectorAsyncExecutor.class, "fast");
+        mockExecutor(UserAsyncExecutor.class, "fast");
+
+        scheduler.submit("slow");
+        scheduler.submit("fast");
+        verify(fastTopicAsyncExecutor, timeout(5000)).run();
+        // the slow cluster is still in its first cycle
+        scheduler.submit("slow");
+        slowCycle.countDown();
+        awaitCycles();
+
+        verify(slowTopicAsyncExecutor, times(1)).run();
+        Assertions.assertEquals(2, scheduler.getCycleDurations().size());
+    }
+
+    @Test
+    void changedTopicIsSynchronized() throws InterruptedException {
+        TopicAsyncExecutor topicAsyncExecutor = mockExecutor(TopicAsyncExecutor.class, "cluster1");
+        scheduler.kafkaAsyncExecutorConfigs = List.of(new KafkaAsyncExecutorConfig("cluster1"));
+        scheduler.onStartupEvent(null);
+
+        Topic topic = buildTopic("topic1", 3);
+        scheduler.onApplicationEvent(new KafkaStoreEvent<>("cluster1/topic1", buildTopic("topic1", 1), topic, 10));
+        awaitCycles();
+
+        verify(topicAsyncExecutor).markDirty("topic1");
+        verify(topicAsyncExecutor).synchronizeDirtyTopics();
+        verify(topicAsyncExecutor, never()).run();
+    }
+
+    @Test
+    void statusUpdateIsIgnored() {
+        scheduler.kafkaAsyncExecutorConfigs = List.of(new KafkaAsyncExecutorConfig("cluster1"));
+        scheduler.onStartupEvent(null);
+
+        Topic topic = buildTopic("topic1", 3);
+        Topic topicWithStatus = buildTopic("topic1", 3);
+        topicWithStatus.setStatus(Topic.TopicStatus.ofSuccess("Topic created"));
+        scheduler.onApplicationEvent(new KafkaStoreEvent<>("cluster1/topic1", topic, topicWithStatus, 10));
+        scheduler.onApplicationEvent(new KafkaStoreEvent<>("cluster1/topic1", topic, null, 11));
+
+        verifyNoInteractions(applicationContext);
+    }
+
+    @Test
+    void resetRequestsResync() {
+        TopicAsyncExecutor topicAsyncExecutor = mockExecutor(TopicAsyncExecutor.class, "cluster1");
+        scheduler.kafkaAsyncExecutorConfigs = List.of(new KafkaAsyncExecutorConfig("cluster1"));
+
+        scheduler.onApplicationEvent(KafkaStoreEvent.reset(Topic.class, 42L));
+
+        verify(topicAsyncExecutor).requestResync();
+        verify(topicAsyncExecutor, never()).markDirty(any());
+    }
+
+    private Topic buildTopic(String name, int partitions) {
+        return Topic.builder()
+                .metadata(ObjectMeta.builder().name(name).cluster("cluster1").build())
+                .spec(Topic.TopicSpec.builder().partitions(partitions).build())
+                .build();
+    }
+
+    private <T> T mockExecutor(Class<T> executorType, String cluster) {
+        T executor = Mockito.mock(executorType);
+        when(applicationContext.getBean(executorType, Qualifiers.byName(cluster))).thenReturn(executor);
+        return executor;
+    }
+
+    private void awaitCycles() throws InterruptedException {
+        scheduler.reconciliationExecutor.shutdown();
+        Assertions.assertTrue(scheduler.reconciliationExecutor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,46 @@
+package com.michelin.ns4kafka.services.executors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ReconcilerTest {
+    private final Reconciler<String, Map.Entry<String, Integer>, Map.Entry<String, Integer>> reconciler = new Reconciler<>(
+            Map.Entry::getKey,
+            Map.Entry::getKey,
+            (desired, actual) -> desired.getValue().equals(actual.getValue()));
+
+    @Test
+    void diff() {
+        Reconciler.Diff<String, Map.Entry<String, Integer>, Map.Entry<String, Integer>> actual = reconciler.diff(
+                List.of(Map.entry("created", 1), Map.entry("updated", 2), Map.entry("same", 3)),
+                List.of(Map.entry("updated", 1), Map.entry("same", 3), Map.entry("deleted", 4)));
+
+        Assertions.assertEquals(List.of(Map.entry("created", 1)), actual.getToCreate());
+        Assertions.assertEquals(1, actual.getToUpdate().size());
+        Assertions.assertEquals(Map.entry("updated", 2), actual.getToUpdate().get(0).getDesired());
+        Assertions.assertEquals(Map.entry("updated", 1), actual.getToUpdate().get(0).getActual());
+        Assertions.assertEquals(List.of(Map.entry("deleted", 4)), actual.getToDelete());
+        Assertions.assertEquals(Map.entry("same", 3), actual.getDesired().get("same"));
+    }
+
+    @Test
+    void diffEmpty() {
+        Reconciler.Diff<String, Map.Entry<String, Integer>, Map.Entry<String, Integer>> actual = reconciler.diff(List.of(), List.of());
+
+        Assertions.assertTrue(actual.getToCreate().isEmpty());
+        Assertions.assertTrue(actual.getToUpdate().isEmpty());
+        Assertions.assertTrue(actual.getToDelete().isEmpty());
+    }
+
+    @Test
+    void index() {
+        Map<Integer, String> actual = Reconciler.index(List.of("a", "bb", "cc"), String::length);
+
+        Assertions.assertEquals(List.of(1, 2), actual.keySet().stream().collect(Collectors.toList()));
+        Assertions.assertEquals("cc", actual.get(2));
+    }
+}
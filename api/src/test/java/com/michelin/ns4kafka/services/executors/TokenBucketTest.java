@@ -0,0 +1,30 @@
+package com.michelin.ns4kafka.services.executors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TokenBucketTest {
+    @Test
+    void reserve() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket tokenBucket = new TokenBucket(2, 10, clock::get);
+
+        // the burst is immediate, then one action every 100ms
+        Assertions.assertEquals(0, tokenBucket.reserve());
+        Assertions.assertEquals(0, tokenBucket.reserve());
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), tokenBucket.reserve());
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(200), tokenBucket.reserve());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(50), tokenBucket.reserve());
+
+        // an idle bucket refills up to its capacity
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertEquals(0, tokenBucket.reserve());
+        Assertions.assertEquals(0, tokenBucket.reserve());
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), tokenBucket.reserve());
+    }
+}
@@ -0,0 +1,212 @@
+package com.michelin.ns4kafka.services.executors;
+
+import com.michelin.ns4kafka.controllers.BrokerTopicsNotLoadedException;
+import com.michelin.ns4kafka.models.ObjectMeta;
+import com.michelin.ns4kafka.models.Topic;
+import com.michelin.ns4kafka.repositories.TopicRepository;
+import org.apache.kafka.clients.admin.*;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.MalformedURLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TopicAsyncExecutorTest {
+    @Mock
+    KafkaAsyncExecutorConfig kafkaAsyncExecutorConfig;
+
+    @Mock
+    Admin adminClient;
+
+    @Mock
+    TopicRepository topicRepository;
+
+    TopicAsyncExecutor topicAsyncExecutor;
+
+    @BeforeEach
+    void setUp() throws MalformedURLException {
+        lenient().when(kafkaAsyncExecutorConfig.getAdminClient()).thenReturn(adminClient);
+        lenient().when(kafkaAsyncExecutorConfig.getName()).thenReturn("local");
+        topicAsyncExecutor = new TopicAsyncExecutor(kafkaAsyncExecutorConfig);
+        topicAsyncExecutor.topicRepository = topicRepository;
+        topicAsyncExecutor.describeChunkSize = 2;
+        topicAsyncExecutor.describeParallelism = 2;
+    }
+
+    @Test
+    void collectBrokerTopicsByChunks() throws InterruptedException {
+        when(adminClient.describeTopics(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> topicNames = invocation.getArgument(0);
+            DescribeTopicsResult result = Mockito.mock(DescribeTopicsResult.class);
+            when(result.all()).thenReturn(KafkaFuture.completedFuture(topicNames.stream()
+                    .collect(Collectors.toMap(name -> name, this::buildTopicDescription))));
+            return result;
+        });
+        when(adminClient.describeConfigs(anyCollection())).thenAnswer(invocation -> {
+            Collection<ConfigResource> resources = invocation.getArgument(0);
+            DescribeConfigsResult result = Mockito.mock(DescribeConfigsResult.class);
+            if (resources.contains(new ConfigResource(ConfigResource.Type.TOPIC, "topic3"))) {
+                KafkaFutureImpl<Map<ConfigResource, Config>> failure = new KafkaFutureImpl<>();
+                failure.completeExceptionally(new TimeoutException("Timed out waiting for a node assignment"));
+                when(result.all()).thenReturn(failure);
+            } else {
+                when(result.all()).thenReturn(KafkaFuture.completedFuture(resources.stream()
+                        .collect(Collectors.toMap(resource -> resource, resource -> new Config(List.of())))));
+            }
+            return result;
+        });
+
+        Set<String> failedTopicNames = new HashSet<>();
+        Map<String, Topic> actual = topicAsyncExecutor.collectBrokerTopicsFromNames(
+                List.of("topic1", "topic2", "topic3", "topic4", "topic5"), failedTopicNames);
+
+        verify(adminClient, times(3)).describeTopics(anyCollection());
+        verify(adminClient).describeTopics(List.of("topic5"));
+        // only the failing chunk is skipped
+        Assertions.assertEquals(Set.of("topic1", "topic2", "topic5"), actual.keySet());
+        Assertions.assertEquals(Set.of("topic3", "topic4"), failedTopicNames);
+        Assertions.assertEquals(3, actual.get("topic1").getSpec().getPartitions());
+        Assertions.assertEquals("local", actual.get("topic1").getMetadata().getCluster());
+    }
+
+    @Test
+    void statusesWrittenBackAtOnce() {
+        Topic topic1 = buildTopic("topic1");
+        Topic topic2 = buildTopic("topic2");
+        when(kafkaAsyncExecutorConfig.isManageTopics()).thenReturn(true);
+        when(topicRepository.findByName("local", "topic1")).thenReturn(Optional.of(topic1));
+        when(topicRepository.findByName("local", "topic2")).thenReturn(Optional.of(topic2));
+        ListTopicsResult listTopicsResult = Mockito.mock(ListTopicsResult.class);
+        when(listTopicsResult.listings()).thenReturn(KafkaFuture.completedFuture(List.of()));
+        when(adminClient.listTopics()).thenReturn(listTopicsResult);
+        CreateTopicsResult createTopicsResult = Mockito.mock(CreateTopicsResult.class);
+        when(createTopicsResult.values()).thenReturn(Map.of(
+                "topic1", KafkaFuture.completedFuture(null),
+                "topic2", KafkaFuture.completedFuture(null)));
+        when(adminClient.createTopics(anyCollection())).thenReturn(createTopicsResult);
+        AlterConfigsResult alterConfigsResult = Mockito.mock(AlterConfigsResult.class);
+        when(alterConfigsResult.values()).thenReturn(Map.of());
+        when(adminClient.incrementalAlterConfigs(anyMap())).thenReturn(alterConfigsResult);
+
+        topicAsyncExecutor.markDirty("topic1");
+        topicAsyncExecutor.markDirty("topic2");
+        topicAsyncExecutor.synchronizeDirtyTopics();
+
+        ArgumentCaptor<List<Topic>> statusUpdates = ArgumentCaptor.forClass(List.class);
+        verify(topicRepository).updateStatuses(statusUpdates.capture());
+        verify(topicRepository, never()).create(any());
+        Assertions.assertEquals(Set.of(topic1, topic2), new HashSet<>(statusUpdates.getValue()));
+        Assertions.assertEquals(Topic.TopicPhase.Success, topic1.getStatus().getPhase());
+        Assertions.assertFalse(topicAsyncExecutor.hasDirtyTopics());
+    }
+
+    @Test
+    void brokerTopicsServedFromCache() throws Exception {
+        topicAsyncExecutor.brokerCacheRefreshInterval = Duration.ofMinutes(1);
+        topicAsyncExecutor.brokerCacheMaxStaleness = Duration.ofMinutes(5);
+        mockBrokerTopics();
+
+        // the first read waits for the topics to be loaded
+        Assertions.assertEquals(List.of("topic1"), topicAsyncExecutor.listBrokerTopicNames());
+        Assertions.assertEquals(Set.of("topic1"), topicAsyncExecutor.collectBrokerTopicsFromNames(List.of("topic1", "topic2")).keySet());
+        DeleteTopicsResult deleteTopicsResult = Mockito.mock(DeleteTopicsResult.class);
+        when(deleteTopicsResult.all()).thenReturn(KafkaFuture.completedFuture(null));
+        when(adminClient.deleteTopics(List.of("topic1"))).thenReturn(deleteTopicsResult);
+        topicAsyncExecutor.deleteTopic(buildTopic("topic1"));
+        Assertions.assertTrue(topicAsyncExecutor.listBrokerTopicNames().isEmpty());
+
+        // only the first read called the broker
+        verify(adminClient, times(1)).listTopics();
+        verify(adminClient, times(1)).describeTopics(anyCollection());
+    }
+
+    @Test
+    void brokerTopicsRefreshedWhenTopicsUnmanaged() throws Exception {
+        topicAsyncExecutor.brokerCacheRefreshInterval = Duration.ofMinutes(1);
+        topicAsyncExecutor.brokerCacheMaxStaleness = Duration.ofMinutes(5);
+        mockBrokerTopics();
+
+        topicAsyncExecutor.run();
+
+        verify(adminClient, times(1)).listTopics();
+        Assertions.assertEquals(List.of("topic1"), topicAsyncExecutor.listBrokerTopicNames());
+        verify(adminClient, times(1)).listTopics();
+    }
+
+    @Test
+    void brokerTopicsReloadedAfterIdleGap() throws Exception {
+        topicAsyncExecutor.brokerCacheRefreshInterval = Duration.ofSeconds(1);
+        topicAsyncExecutor.brokerCacheMaxStaleness = Duration.ofSeconds(1);
+        mockBrokerTopics();
+        topicAsyncExecutor.run();
+
+        // no reconciliation for longer than the max staleness, the next apply waits for the reload
+        Thread.sleep(1100);
+        Assertions.assertEquals(Set.of("topic1"), topicAsyncExecutor.findCollidingBrokerTopics("topic1"));
+        verify(adminClient, times(2)).listTopics();
+    }
+
+    @Test
+    void brokerTopicsLoadTimeout() {
+        topicAsyncExecutor.brokerCacheRefreshInterval = Duration.ofMinutes(1);
+        topicAsyncExecutor.brokerCacheMaxStaleness = Duration.ofMinutes(5);
+        topicAsyncExecutor.brokerCacheLoadTimeout = Duration.ofMillis(50);
+        KafkaFutureImpl<Collection<TopicListing>> listings = new KafkaFutureImpl<>();
+        ListTopicsResult listTopicsResult = Mockito.mock(ListTopicsResult.class);
+        when(listTopicsResult.listings()).thenReturn(listings);
+        when(adminClient.listTopics()).thenReturn(listTopicsResult);
+
+        Assertions.assertThrows(BrokerTopicsNotLoadedException.class, () -> topicAsyncExecutor.listBrokerTopicNames());
+        listings.completeExceptionally(new TimeoutException("broker down"));
+    }
+
+    private void mockBrokerTopics() {
+        ListTopicsResult listTopicsResult = Mockito.mock(ListTopicsResult.class);
+        when(listTopicsResult.listings()).thenReturn(KafkaFuture.completedFuture(List.of(new TopicListing("topic1", false))));
+        when(adminClient.listTopics()).thenReturn(listTopicsResult);
+        DescribeTopicsResult describeTopicsResult = Mockito.mock(DescribeTopicsResult.class);
+        when(describeTopicsResult.all()).thenReturn(KafkaFuture.completedFuture(Map.of("topic1", buildTopicDescription("topic1"))));
+        when(adminClient.describeTopics(anyCollection())).thenReturn(describeTopicsResult);
+        DescribeConfigsResult describeConfigsResult = Mockito.mock(DescribeConfigsResult.class);
+        when(describeConfigsResult.all()).thenReturn(KafkaFuture.completedFuture(
+                Map.of(new ConfigResource(ConfigResource.Type.TOPIC, "topic1"), new Config(List.of()))));
+        when(adminClient.describeConfigs(anyCollection())).thenReturn(describeConfigsResult);
+    }
+
+    private Topic buildTopic(String name) {
+        return Topic.builder()
+                .metadata(ObjectMeta.builder().name(name).cluster("local").build())
+                .spec(Topic.TopicSpec.builder()
+                        .replicationFactor(1)
+                        .partitions(3)
+                        .configs(Map.of("cleanup.policy", "delete"))
+                        .build())
+                .build();
+    }
+
+    private TopicDescription buildTopicDescription(String name) {
+        Node node = new Node(1, "localhost", 9092);
+        List<TopicPartitionInfo> partitions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            partitions.add(new TopicPartitionInfo(i, node, List.of(node), List.of(node)));
+        }
+        return new TopicDescription(name, false, partitions);
+    }
+}